@@ -0,0 +1,71 @@
+package lt.grimsa.hibernate.id.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+
+/**
+ * Nested classes model the following entity hierarchy, using joined inheritance:
+ *
+ * <pre>
+ *       Animal
+ *       /   \
+ *      /     \
+ *   Mammal   Reptile
+ *     |
+ *   Primate
+ *     |
+ *   Human (+ Human_Friends and Human_Pets many-to-many tables)
+ * </pre>
+ *
+ * Benchmarks target {@code Reptile} (2 tables), {@code Primate} (4 tables, including the {@code Human} subclass table) and {@code Human} (4 tables
+ * and 2 collection tables).
+ */
+public class BenchmarkEntities {
+
+    private BenchmarkEntities() {
+    }
+
+    @Entity(name = "Animal")
+    @Inheritance(strategy = InheritanceType.JOINED)
+    public static class Animal {
+
+        @Id public Long id;
+        public String name;
+    }
+
+    @Entity(name = "Reptile")
+    public static class Reptile extends Animal {
+        public String reptileField;
+    }
+
+    @Entity(name = "Mammal")
+    public static class Mammal extends Animal {
+        public String mammalField;
+    }
+
+    @Entity(name = "Primate")
+    public static class Primate extends Mammal {
+        public String primateField;
+    }
+
+    @Entity(name = "Human")
+    public static class Human extends Primate {
+        public String humanField;
+
+        @ManyToMany
+        @JoinTable(name = "Human_Friends", joinColumns = @JoinColumn(name = "human_id"), inverseJoinColumns = @JoinColumn(name = "friend_id"))
+        public Set<Human> friends = new HashSet<>();
+
+        @ManyToMany
+        @JoinTable(name = "Human_Pets", joinColumns = @JoinColumn(name = "human_id"), inverseJoinColumns = @JoinColumn(name = "pet_id"))
+        public Set<Reptile> pets = new HashSet<>();
+    }
+}
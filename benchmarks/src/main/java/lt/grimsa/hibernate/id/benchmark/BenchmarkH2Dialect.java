@@ -0,0 +1,15 @@
+package lt.grimsa.hibernate.id.benchmark;
+
+import org.hibernate.dialect.H2Dialect;
+
+/**
+ * {@link H2Dialect} declaring support for row values in {@code IN} lists, which H2 has, but Hibernate's {@code InlineIdsInClauseBulkIdStrategy}
+ * refuses to run without.
+ */
+public class BenchmarkH2Dialect extends H2Dialect {
+
+    @Override
+    public boolean supportsRowValueConstructorSyntaxInInList() {
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package lt.grimsa.hibernate.id.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures an end-to-end bulk HQL delete of all instances of the targeted entity. Rows are re-seeded before every invocation, outside of the
+ * measured time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(1)
+public class BulkDeleteBenchmark extends BulkIdBenchmarkState {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUpSessionFactory();
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() {
+        seedRows();
+    }
+
+    @Benchmark
+    public int delete() {
+        String hql = "delete from " + target;
+        return doInTransaction(session -> session.createQuery(hql).executeUpdate());
+    }
+}
@@ -0,0 +1,164 @@
+package lt.grimsa.hibernate.id.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import lt.grimsa.hibernate.id.SingleGlobalTemporaryTableBulkIdStrategy;
+import lt.grimsa.hibernate.id.benchmark.BenchmarkEntities.Animal;
+import lt.grimsa.hibernate.id.benchmark.BenchmarkEntities.Human;
+import lt.grimsa.hibernate.id.benchmark.BenchmarkEntities.Mammal;
+import lt.grimsa.hibernate.id.benchmark.BenchmarkEntities.Primate;
+import lt.grimsa.hibernate.id.benchmark.BenchmarkEntities.Reptile;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.hql.spi.id.global.GlobalTemporaryTableBulkIdStrategy;
+import org.hibernate.hql.spi.id.inline.InlineIdsInClauseBulkIdStrategy;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared benchmark state: a {@link SessionFactory} on an embedded H2 database configured with the bulk id strategy under test, and helpers for
+ * seeding rows of the targeted entity with plain SQL.
+ */
+@State(Scope.Benchmark)
+public class BulkIdBenchmarkState {
+
+    /**
+     * Strategy under test:
+     * <ul>
+     * <li>{@code SingleTable} - {@link SingleGlobalTemporaryTableBulkIdStrategy} with {@code CLEAN_ROWS=false}</li>
+     * <li>{@code SingleTableCleanRows} - {@link SingleGlobalTemporaryTableBulkIdStrategy} with {@code CLEAN_ROWS=true}</li>
+     * <li>{@code GlobalTemporaryTable} - Hibernate's {@link GlobalTemporaryTableBulkIdStrategy}</li>
+     * <li>{@code InlineIdsInClause} - Hibernate's {@link InlineIdsInClauseBulkIdStrategy}</li>
+     * </ul>
+     */
+    @Param({"SingleTable", "SingleTableCleanRows", "GlobalTemporaryTable", "InlineIdsInClause"})
+    public String strategy;
+
+    /**
+     * Targeted entity, see {@link BenchmarkEntities} for the shape of each hierarchy
+     */
+    @Param({"Reptile", "Primate", "Human"})
+    public String target;
+
+    /**
+     * Number of rows matched (and therefore staged) by each bulk operation
+     */
+    @Param({"1", "1000", "100000", "1000000"})
+    public int rows;
+
+    protected SessionFactory sessionFactory;
+
+    protected void setUpSessionFactory() {
+        Configuration configuration = new Configuration();
+        for (Class<?> entity : Arrays.asList(Animal.class, Reptile.class, Mammal.class, Primate.class, Human.class)) {
+            configuration.addAnnotatedClass(entity);
+        }
+        configuration.setProperty(AvailableSettings.DIALECT, BenchmarkH2Dialect.class.getName());
+        configuration.setProperty(AvailableSettings.DRIVER, "org.h2.Driver");
+        configuration.setProperty(AvailableSettings.URL, "jdbc:h2:mem:" + UUID.randomUUID());
+        configuration.setProperty(AvailableSettings.USER, "sa");
+        configuration.setProperty(AvailableSettings.PASS, "");
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+        configuration.setProperty(AvailableSettings.HQL_BULK_ID_STRATEGY, getStrategyClass().getName());
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_TEMP_IDS");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, Boolean.toString("SingleTableCleanRows".equals(strategy)));
+        sessionFactory = configuration.buildSessionFactory();
+
+        doInTransaction(session -> session.createNativeQuery("create global temporary table HT_TEMP_IDS (ID BIGINT, ENTITY_NAME VARCHAR(100))").executeUpdate());
+    }
+
+    private Class<?> getStrategyClass() {
+        switch (strategy) {
+            case "SingleTable":
+            case "SingleTableCleanRows":
+                return SingleGlobalTemporaryTableBulkIdStrategy.class;
+            case "GlobalTemporaryTable":
+                return GlobalTemporaryTableBulkIdStrategy.class;
+            case "InlineIdsInClause":
+                return InlineIdsInClauseBulkIdStrategy.class;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    /**
+     * Inserts {@link #rows} instances of the {@link #target} entity, including rows in its collection tables. Humans each get a friend and a pet,
+     * the pets being reptiles that outlive the humans, so they are only inserted once
+     */
+    protected void seedRows() {
+        doInTransaction(session -> {
+            int inserted = 0;
+            for (String table : getTargetTables()) {
+                inserted += session.createNativeQuery("insert into " + table + " (id) select x from system_range(1, " + rows + ")").executeUpdate();
+            }
+            if ("Human".equals(target)) {
+                inserted += session.createNativeQuery("insert into Human_Friends (human_id, friend_id) select x, x from system_range(1, " + rows + ")").executeUpdate();
+                for (String table : Arrays.asList("Animal", "Reptile")) {
+                    session.createNativeQuery("merge into " + table + " (id) key (id) select x from system_range(" + (rows + 1) + ", " + 2 * rows + ")")
+                            .executeUpdate();
+                }
+                inserted += session.createNativeQuery("insert into Human_Pets (human_id, pet_id) select x, " + rows + " + x from system_range(1, " + rows + ")")
+                        .executeUpdate();
+            }
+            return inserted;
+        });
+    }
+
+    private List<String> getTargetTables() {
+        switch (target) {
+            case "Reptile":
+                return Arrays.asList("Animal", "Reptile");
+            case "Primate":
+                return Arrays.asList("Animal", "Mammal", "Primate");
+            case "Human":
+                return Arrays.asList("Animal", "Mammal", "Primate", "Human");
+            default:
+                throw new IllegalArgumentException("Unknown target: " + target);
+        }
+    }
+
+    /**
+     * @return HQL for updating all instances of the {@link #target} entity, touching one table per level of the hierarchy below the root
+     */
+    protected String getUpdateHql() {
+        switch (target) {
+            case "Reptile":
+                return "update Reptile set reptileField = :value";
+            case "Primate":
+                return "update Primate set primateField = :value, mammalField = :value";
+            case "Human":
+                return "update Human set humanField = :value, primateField = :value, mammalField = :value";
+            default:
+                throw new IllegalArgumentException("Unknown target: " + target);
+        }
+    }
+
+    protected int doInTransaction(SessionWork work) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            int result = work.execute(session);
+            transaction.commit();
+            return result;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (sessionFactory != null) {
+            // closing the last connection drops the in-memory database
+            sessionFactory.close();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface SessionWork {
+        int execute(Session session);
+    }
+}
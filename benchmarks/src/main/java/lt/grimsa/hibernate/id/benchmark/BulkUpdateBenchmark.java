@@ -0,0 +1,38 @@
+package lt.grimsa.hibernate.id.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures an end-to-end bulk HQL update of all instances of the targeted entity. Rows are seeded once per trial, as updates leave them in place.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkUpdateBenchmark extends BulkIdBenchmarkState {
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUpSessionFactory();
+        seedRows();
+    }
+
+    @Benchmark
+    public int update() {
+        String hql = getUpdateHql();
+        String newValue = Integer.toString(value++);
+        return doInTransaction(session -> session.createQuery(hql).setParameter("value", newValue).executeUpdate());
+    }
+}
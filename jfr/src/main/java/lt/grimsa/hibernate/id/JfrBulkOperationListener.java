@@ -0,0 +1,104 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link BulkOperationListener} emitting Java Flight Recorder events: a {@code lt.grimsa.hibernate.id.BulkOperation} event per bulk operation and
+ * nested {@code lt.grimsa.hibernate.id.BulkStatement} events for staging, each per-table statement and cleanup. Events are subject to the usual
+ * JFR settings (enablement, thresholds), so they are not recorded unless a recording enables them. No events are allocated while they are not enabled.
+ * Requires a JVM with the {@code jdk.jfr} module.
+ * <p>
+ * Enable with {@code SingleGlobalTemporaryTableBulkIdStrategy.LISTENER = JfrBulkOperationListener.class.getName()}.
+ */
+public class JfrBulkOperationListener implements BulkOperationListener {
+    /**
+     * Stands in for an event of a phase started while its event type was disabled, keeping started and completed phases paired
+     */
+    private static final Object NOT_RECORDED = new Object();
+    private static final EventType operationEventType = EventType.getEventType(BulkOperationEvent.class);
+    private static final EventType statementEventType = EventType.getEventType(BulkStatementEvent.class);
+    private static final ThreadLocal<Deque<Object>> startedEvents = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void phaseStarted(String entityName, Phase phase, String tableName, String sql) {
+        if (!(phase == Phase.OPERATION ? operationEventType : statementEventType).isEnabled()) {
+            startedEvents.get().push(NOT_RECORDED);
+            return;
+        }
+        final Event event = phase == Phase.OPERATION ? new BulkOperationEvent() : new BulkStatementEvent();
+        event.begin();
+        startedEvents.get().push(event);
+    }
+
+    @Override
+    public void phaseCompleted(String entityName, Phase phase, String tableName, String sql, int rowCount, long durationNanos) {
+        final Object started = startedEvents.get().pop();
+        if (started == NOT_RECORDED) {
+            return;
+        }
+        final Event event = (Event) started;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        if (event instanceof BulkOperationEvent) {
+            final BulkOperationEvent operationEvent = (BulkOperationEvent) event;
+            operationEvent.entityName = entityName;
+            operationEvent.rowCount = rowCount;
+        } else {
+            final BulkStatementEvent statementEvent = (BulkStatementEvent) event;
+            statementEvent.entityName = entityName;
+            statementEvent.phase = phase.name();
+            statementEvent.tableName = tableName;
+            statementEvent.sql = sql;
+            statementEvent.rowCount = rowCount;
+        }
+        event.commit();
+    }
+
+    @Name("lt.grimsa.hibernate.id.BulkOperation")
+    @Label("Bulk Operation")
+    @Category({ "Hibernate", "Bulk ID Strategy" })
+    @Description("HQL bulk update/delete executed through the single global temporary table")
+    @StackTrace(false)
+    static class BulkOperationEvent extends Event {
+        @Label("Entity Name")
+        String entityName;
+
+        @Label("Row Count")
+        @Description("Number of affected entities, -1 if the operation failed")
+        int rowCount;
+    }
+
+    @Name("lt.grimsa.hibernate.id.BulkStatement")
+    @Label("Bulk Operation Statement")
+    @Category({ "Hibernate", "Bulk ID Strategy" })
+    @Description("Statement executed as part of a bulk update/delete: ID staging, per-table update/delete or cleanup")
+    @StackTrace(false)
+    static class BulkStatementEvent extends Event {
+        @Label("Entity Name")
+        String entityName;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Table Name")
+        String tableName;
+
+        @Label("SQL")
+        String sql;
+
+        @Label("Row Count")
+        @Description("Number of rows staged/affected/deleted, -1 if the statement failed")
+        int rowCount;
+    }
+}
@@ -0,0 +1,93 @@
+package lt.grimsa.hibernate.id;
+
+import lt.grimsa.hibernate.id.BulkOperationListener.Phase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JfrBulkOperationListenerTest {
+    private static final String OPERATION_EVENT = "lt.grimsa.hibernate.id.BulkOperation";
+    private static final String STATEMENT_EVENT = "lt.grimsa.hibernate.id.BulkStatement";
+
+    private final JfrBulkOperationListener listener = new JfrBulkOperationListener();
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        // given
+        Path file = Files.createTempFile("bulk-id", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(OPERATION_EVENT).withoutThreshold();
+            recording.enable(STATEMENT_EVENT).withoutThreshold();
+            recording.start();
+
+            // when
+            executeOperation();
+            recording.stop();
+            recording.dump(file);
+
+            // then: operation and nested statement events were recorded
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<String> statements = events.stream()
+                    .filter(event -> event.getEventType().getName().equals(STATEMENT_EVENT))
+                    .map(event -> event.getString("phase") + " " + event.getString("tableName") + " " + event.getInt("rowCount"))
+                    .collect(Collectors.toList());
+            assertEquals(3, statements.size());
+            assertEquals("STAGING null 2", statements.get(0));
+            assertEquals("TABLE_STATEMENT Mammal 2", statements.get(1));
+            assertEquals("CLEANUP null 2", statements.get(2));
+            List<RecordedEvent> operations = events.stream()
+                    .filter(event -> event.getEventType().getName().equals(OPERATION_EVENT))
+                    .collect(Collectors.toList());
+            assertEquals(1, operations.size());
+            assertEquals("model.Human", operations.get(0).getString("entityName"));
+            assertEquals(2, operations.get(0).getInt("rowCount"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenEventsAreDisabled() throws Exception {
+        // given
+        Path file = Files.createTempFile("bulk-id", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.disable(OPERATION_EVENT);
+            recording.disable(STATEMENT_EVENT);
+            recording.start();
+
+            // when
+            executeOperation();
+            recording.stop();
+            recording.dump(file);
+
+            // then
+            assertEquals(0, RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("lt.grimsa.hibernate.id."))
+                    .count());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void executeOperation() {
+        listener.phaseStarted("model.Human", Phase.OPERATION, null, null);
+        reportStatement(Phase.STAGING, null, "insert into HT_TEMP_IDS (ID, ENTITY_NAME) select id, 'model.Human' from Human");
+        reportStatement(Phase.TABLE_STATEMENT, "Mammal", "update Mammal set mammalField='x' where (id) IN (select ID from HT_TEMP_IDS)");
+        reportStatement(Phase.CLEANUP, null, "delete from HT_TEMP_IDS where ENTITY_NAME='model.Human'");
+        listener.phaseCompleted("model.Human", Phase.OPERATION, null, null, 2, 0);
+    }
+
+    private void reportStatement(Phase phase, String tableName, String sql) {
+        listener.phaseStarted("model.Human", phase, tableName, sql);
+        listener.phaseCompleted("model.Human", phase, tableName, sql, 2, 0);
+    }
+}
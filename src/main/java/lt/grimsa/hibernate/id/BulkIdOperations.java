@@ -0,0 +1,92 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.spi.id.MultiTableBulkIdStrategy;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.query.Query;
+
+/**
+ * Bulk updates/deletes of entities whose IDs are supplied by the application (e.g. read from a message or a file) rather than selected by a where
+ * clause. The IDs are streamed into the ID table of {@link SingleGlobalTemporaryTableBulkIdStrategy} with batched inserts (of
+ * {@code hibernate.jdbc.batch_size} rows, or 1000 if it is not set), after which the same per-table statements as for an HQL update/delete are
+ * executed. Memory use does not depend on the number of IDs.
+ * <p>
+ * Only entities spanning several tables are supported, as Hibernate executes statements for other entities without the ID table.
+ */
+public final class BulkIdOperations {
+
+    private BulkIdOperations() {
+    }
+
+    /**
+     * Deletes the entities of the given type with the given IDs
+     *
+     * @return number of deleted entities
+     */
+    public static int delete(Session session, Class<?> entityClass, Iterator<?> ids) {
+        final String entityName = getPersister(session, entityClass).getEntityName();
+        return executeUpdate(session, "delete from " + entityName, Collections.emptyMap(), ids);
+    }
+
+    /**
+     * @see #delete(Session, Class, Iterator)
+     */
+    public static int delete(Session session, Class<?> entityClass, Stream<?> ids) {
+        try (Stream<?> closedIds = ids) {
+            return delete(session, entityClass, closedIds.iterator());
+        }
+    }
+
+    /**
+     * Updates the entities of the given type with the given IDs
+     *
+     * @param assignments HQL assignments of the update, e.g. {@code mammalField = :value}
+     * @param parameters values of named parameters used in the assignments
+     * @return number of updated entities
+     */
+    public static int update(Session session, Class<?> entityClass, String assignments, Map<String, ?> parameters, Iterator<?> ids) {
+        final String entityName = getPersister(session, entityClass).getEntityName();
+        return executeUpdate(session, "update " + entityName + " set " + assignments, parameters, ids);
+    }
+
+    /**
+     * @see #update(Session, Class, String, Map, Iterator)
+     */
+    public static int update(Session session, Class<?> entityClass, String assignments, Map<String, ?> parameters, Stream<?> ids) {
+        try (Stream<?> closedIds = ids) {
+            return update(session, entityClass, assignments, parameters, closedIds.iterator());
+        }
+    }
+
+    private static int executeUpdate(Session session, String hql, Map<String, ?> parameters, Iterator<?> ids) {
+        final Query<?> query = session.createQuery(hql);
+        parameters.forEach(query::setParameter);
+        return getStrategy(session).executeUpdate(query, ids);
+    }
+
+    private static Queryable getPersister(Session session, Class<?> entityClass) {
+        final EntityPersister persister = ((SessionFactoryImplementor) session.getSessionFactory()).getMetamodel().entityPersister(entityClass);
+        if (!(persister instanceof Queryable) || !((Queryable) persister).isMultiTable()) {
+            throw new HibernateException("Entity " + persister.getEntityName() + " is mapped to a single table, so its bulk operations do not use the ID table");
+        }
+        return (Queryable) persister;
+    }
+
+    private static SingleGlobalTemporaryTableBulkIdStrategy getStrategy(Session session) {
+        final MultiTableBulkIdStrategy strategy = ((SessionFactoryImplementor) session.getSessionFactory()).getSessionFactoryOptions()
+                .getMultiTableBulkIdStrategy();
+        if (!(strategy instanceof SingleGlobalTemporaryTableBulkIdStrategy)) {
+            throw new HibernateException("Bulk operations with supplied IDs require " + SingleGlobalTemporaryTableBulkIdStrategy.class.getName()
+                    + " to be the configured bulk ID strategy");
+        }
+        return (SingleGlobalTemporaryTableBulkIdStrategy) strategy;
+    }
+}
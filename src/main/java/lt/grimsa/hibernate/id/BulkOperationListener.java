@@ -0,0 +1,50 @@
+package lt.grimsa.hibernate.id;
+
+/**
+ * Receives notifications about the phases of bulk operations executed by {@link SingleGlobalTemporaryTableBulkIdStrategy}, e.g. to record metrics.
+ * Configured with {@link SingleGlobalTemporaryTableBulkIdStrategy#LISTENER}. Implementations must be thread-safe and should be fast, as they are
+ * invoked synchronously on the thread executing the operation.
+ * <p>
+ * Every {@link #phaseStarted} call is followed by a matching {@link #phaseCompleted} call on the same thread, also when the phase fails. Phases of a
+ * single operation are nested within its {@link Phase#OPERATION} phase.
+ */
+public interface BulkOperationListener {
+
+    enum Phase {
+        /**
+         * The whole bulk update/delete. Row count is the number of affected entities
+         */
+        OPERATION,
+        /**
+         * Staging of matching IDs in the ID table, or selecting them into memory when inlining them. Row count is the number of IDs
+         */
+        STAGING,
+        /**
+         * An update/delete of a single table. Row count is the number of affected rows. Statements sent as a single batch (see
+         * {@link SingleGlobalTemporaryTableBulkIdStrategy#BATCH_STATEMENTS}) are reported as one phase, with the largest row count of a single
+         * table, and so is a whole operation executed with {@link SingleGlobalTemporaryTableBulkIdStrategy#WRITABLE_CTE}, with the number of
+         * affected entities
+         */
+        TABLE_STATEMENT,
+        /**
+         * Deletion of staged rows from the ID table. Row count is the number of deleted rows
+         */
+        CLEANUP
+    }
+
+    /**
+     * @param entityName discriminator value of the entity, as returned by {@link SingleGlobalTemporaryTableBulkIdStrategy#generateDiscriminatorValue},
+     *            or {@code null} for a deferred cleanup covering several entities
+     * @param tableName table affected by a {@link Phase#TABLE_STATEMENT}, otherwise (or for a batch of statements) {@code null}
+     * @param sql executed statement, {@code null} for {@link Phase#OPERATION}
+     */
+    default void phaseStarted(String entityName, Phase phase, String tableName, String sql) {
+    }
+
+    /**
+     * @param rowCount number of rows as described by each {@link Phase}, or {@code -1} if the phase failed
+     * @param durationNanos elapsed time since the matching {@link #phaseStarted} call
+     */
+    default void phaseCompleted(String entityName, Phase phase, String tableName, String sql, int rowCount, long durationNanos) {
+    }
+}
@@ -0,0 +1,35 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.List;
+
+import org.hibernate.param.ParameterSpecification;
+
+/**
+ * A single update/delete statement executed against one table for the IDs staged by a bulk operation.
+ */
+final class BulkStatement {
+    private final String tableName;
+    private final String sql;
+    private final List<ParameterSpecification> parameterSpecifications;
+
+    BulkStatement(String tableName, String sql, List<ParameterSpecification> parameterSpecifications) {
+        this.tableName = tableName;
+        this.sql = sql;
+        this.parameterSpecifications = parameterSpecifications;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return parameters of the statement itself (e.g. values of update assignments), bound before the parameters of the ID subselect
+     */
+    List<ParameterSpecification> getParameterSpecifications() {
+        return parameterSpecifications;
+    }
+}
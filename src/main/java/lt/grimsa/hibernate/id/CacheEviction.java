@@ -0,0 +1,75 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.Queryable;
+
+/**
+ * Second-level cache eviction of the entity region for a single bulk operation, see {@link SingleGlobalTemporaryTableBulkIdStrategy#CACHE_EVICTION_LIMIT}.
+ * Hibernate's own eviction of the whole entity region is suppressed on purpose for such operations, so entries of the affected entities are locked
+ * and removed one by one instead, and the region is only evicted as a whole once the operation affects more entities than the limit. Collection and
+ * natural ID regions are still evicted by Hibernate. Locks are held until {@link #release()} is called on transaction completion, the same as for
+ * regions evicted by Hibernate.
+ */
+final class CacheEviction {
+    private final SharedSessionContractImplementor session;
+    private final Queryable persister;
+    private final EntityDataAccess cacheAccess;
+    private final int limit;
+    private final List<Runnable> releases = new ArrayList<>();
+    private int evictedCount;
+    private boolean regionEvicted;
+
+    CacheEviction(SharedSessionContractImplementor session, Queryable persister, int limit) {
+        this.session = session;
+        this.persister = persister;
+        this.cacheAccess = persister.getCacheAccessStrategy();
+        this.limit = limit;
+    }
+
+    /**
+     * Evicts entries of the given entities, or the whole region if there are too many
+     *
+     * @param count number of IDs
+     * @param ids loads the IDs, only called if they are to be evicted one by one
+     */
+    void evict(int count, Supplier<List<Object>> ids) {
+        if (regionEvicted) {
+            return;
+        }
+        if (evictedCount + count > limit || ids == null) {
+            evictRegion();
+            return;
+        }
+        evictedCount += count;
+        for (Object id : ids.get()) {
+            final Object key = cacheAccess.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+            final SoftLock lock = cacheAccess.lockItem(session, key, null);
+            cacheAccess.remove(session, key);
+            releases.add(() -> cacheAccess.unlockItem(session, key, lock));
+        }
+    }
+
+    /**
+     * Evicts the region of the entity, as Hibernate does for bulk operations
+     */
+    void evictRegion() {
+        if (regionEvicted) {
+            return;
+        }
+        regionEvicted = true;
+        final SoftLock lock = cacheAccess.lockRegion();
+        cacheAccess.removeAll(session);
+        releases.add(() -> cacheAccess.unlockRegion(lock));
+    }
+
+    void release() {
+        releases.forEach(Runnable::run);
+        releases.clear();
+    }
+}
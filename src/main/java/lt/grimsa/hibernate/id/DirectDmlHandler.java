@@ -0,0 +1,154 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import antlr.collections.AST;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.QueryParameters;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.hql.internal.ast.HqlSqlWalker;
+import org.hibernate.hql.internal.ast.tree.AssignmentSpecification;
+import org.hibernate.hql.internal.ast.tree.FromElement;
+import org.hibernate.hql.internal.ast.tree.UpdateStatement;
+import org.hibernate.hql.spi.id.AbstractTableBasedBulkIdHandler;
+import org.hibernate.hql.spi.id.MultiTableBulkIdStrategy;
+import org.hibernate.param.ParameterSpecification;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.sql.Update;
+
+/**
+ * Executes a bulk update as a single statement without staging IDs, for updates that only affect one table:
+ * <ul>
+ * <li>{@code update T set ...} when the entity's own table is updated and there is no where clause</li>
+ * <li>{@code update T set ... where (id) IN (select id from <entity tables> where ...)} otherwise</li>
+ * </ul>
+ * Deletes never qualify, as the strategy is only used for entities spanning several tables, all of which a delete affects. The subquery form
+ * references the modified table, which MySQL does not allow, so it is not used on MySQL.
+ */
+final class DirectDmlHandler extends AbstractTableBasedBulkIdHandler implements MultiTableBulkIdStrategy.UpdateHandler {
+    private final Queryable targetedPersister;
+    private final String tableName;
+    private final String sql;
+    private final List<ParameterSpecification> parameterSpecifications;
+
+    private DirectDmlHandler(SessionFactoryImplementor factory, HqlSqlWalker walker, FromElement fromElement, int tableIndex, List<String> assignments,
+            List<ParameterSpecification> assignmentParameterSpecifications) {
+        super(factory, walker);
+        this.targetedPersister = fromElement.getQueryable();
+
+        this.tableName = targetedPersister.getConstraintOrderedTableNameClosure()[tableIndex];
+        final String[] keyColumnNames = targetedPersister.getContraintOrderedTableKeyColumnClosure()[tableIndex];
+        final ProcessedWhereClause whereClause = processWhereClause(getWhereClause(walker));
+        final String where = isAllRowsOfTable(whereClause, tableName)
+                ? null
+                : "(" + String.join(", ", keyColumnNames) + ") IN (" + generateIdSelect(fromElement.getTableAlias(), whereClause).toStatementString() + ")";
+
+        final Update update = new Update(getDialect(factory)).setTableName(tableName).setWhere(where);
+        assignments.forEach(update::appendAssignmentFragment);
+        if (factory.getSessionFactoryOptions().isCommentsEnabled()) {
+            update.setComment("bulk update");
+        }
+        this.sql = update.toStatementString();
+
+        final List<ParameterSpecification> parameters = new ArrayList<>(assignmentParameterSpecifications);
+        if (where != null) {
+            parameters.addAll(whereClause.getIdSelectParameterSpecifications());
+        }
+        this.parameterSpecifications = parameters;
+    }
+
+    /**
+     * @return a handler executing the update as a single statement, or {@code null} if the update affects several tables
+     */
+    @SuppressWarnings("unchecked")
+    static DirectDmlHandler forUpdate(SessionFactoryImplementor factory, HqlSqlWalker walker) {
+        final FromElement fromElement = ((UpdateStatement) walker.getAST()).getFromClause().getFromElement();
+        final String[] tableNames = fromElement.getQueryable().getConstraintOrderedTableNameClosure();
+        final List<AssignmentSpecification> assignmentSpecifications = walker.getAssignmentSpecifications();
+
+        int affectedTableIndex = -1;
+        for (int i = 0; i < tableNames.length; i++) {
+            for (AssignmentSpecification assignmentSpecification : assignmentSpecifications) {
+                if (assignmentSpecification.affectsTable(tableNames[i])) {
+                    if (affectedTableIndex >= 0 && affectedTableIndex != i) {
+                        return null;
+                    }
+                    affectedTableIndex = i;
+                }
+            }
+        }
+        if (affectedTableIndex < 0 || !canUseDirectDml(factory, walker, fromElement, tableNames[affectedTableIndex])) {
+            return null;
+        }
+
+        final List<String> assignments = new ArrayList<>();
+        final List<ParameterSpecification> parameters = new ArrayList<>();
+        for (AssignmentSpecification assignmentSpecification : assignmentSpecifications) {
+            assignments.add(assignmentSpecification.getSqlAssignmentFragment());
+            if (assignmentSpecification.getParameters() != null) {
+                Collections.addAll(parameters, assignmentSpecification.getParameters());
+            }
+        }
+        return new DirectDmlHandler(factory, walker, fromElement, affectedTableIndex, assignments, parameters);
+    }
+
+    private static boolean canUseDirectDml(SessionFactoryImplementor factory, HqlSqlWalker walker, FromElement fromElement, String tableName) {
+        final boolean allRowsOfTable = getWhereClause(walker).getNumberOfChildren() == 0 && tableName.equals(fromElement.getQueryable().getTableName());
+        return allRowsOfTable || !(getDialect(factory) instanceof MySQLDialect);
+    }
+
+    private boolean isAllRowsOfTable(ProcessedWhereClause whereClause, String tableName) {
+        return whereClause.getUserWhereClauseFragment().isEmpty() && tableName.equals(targetedPersister.getTableName());
+    }
+
+    private static AST getWhereClause(HqlSqlWalker walker) {
+        return ((UpdateStatement) walker.getAST()).getWhereClause();
+    }
+
+    private static Dialect getDialect(SessionFactoryImplementor factory) {
+        return factory.getJdbcServices().getJdbcEnvironment().getDialect();
+    }
+
+    @Override
+    public Queryable getTargetedQueryable() {
+        return targetedPersister;
+    }
+
+    /**
+     * @return the only table affected by the statement
+     */
+    String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public String[] getSqlStatements() {
+        return new String[] {sql};
+    }
+
+    @Override
+    public int execute(SharedSessionContractImplementor session, QueryParameters queryParameters) {
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            int position = 1;
+            for (ParameterSpecification parameterSpecification : parameterSpecifications) {
+                position += parameterSpecification.bind(ps, queryParameters, session, position);
+            }
+            return session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "error performing direct bulk DML", sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+        }
+    }
+}
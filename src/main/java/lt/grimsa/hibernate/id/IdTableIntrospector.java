@@ -0,0 +1,229 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.hibernate.boot.spi.MetadataImplementor;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Queryable;
+import org.jboss.logging.Logger;
+
+import lt.grimsa.hibernate.id.StrategySettings.CleanupMode;
+
+/**
+ * Checks the layout of the ID tables against the configuration when the strategy is prepared, see
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#INTROSPECT_TABLE}. Each layout that makes bulk operations fail or perform badly is logged as a
+ * warning. Typed ID columns missing from the tables, tables deleting their rows on commit and, if chosen by introspection,
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEAN_ROWS} are recorded in the settings.
+ */
+final class IdTableIntrospector {
+    // logged under the strategy's category, where users look for its messages
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+
+    private final StrategySettings settings;
+
+    IdTableIntrospector(StrategySettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Reads the layout of the ID tables, logs what does not fit the configuration and adjusts the settings that depend on it
+     */
+    void introspect(JdbcConnectionAccess connectionAccess, MetadataImplementor metadata) {
+        final List<String> tableNames = settings.getTableNames();
+        final List<IdTableMetadata> tables = new ArrayList<>();
+        try {
+            final Connection connection = connectionAccess.obtainConnection();
+            try {
+                for (String tableName : tableNames) {
+                    final IdTableMetadata table = IdTableMetadata.read(connection, settings.getDialect(), tableName);
+                    if (table != null) {
+                        tables.add(table);
+                    } else {
+                        log.warnf("ID table %s does not exist, so its layout is not checked", tableName);
+                    }
+                }
+            } finally {
+                connectionAccess.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            log.warnf(e, "Could not read the layout of ID tables %s, so it is not checked", tableNames);
+            return;
+        }
+
+        for (IdTableMetadata table : tables) {
+            settings.setNumericIdColumn(checkTypedIdColumn(table, settings.getNumericIdColumn(),
+                    SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN));
+            settings.setBinaryIdColumn(checkTypedIdColumn(table, settings.getBinaryIdColumn(),
+                    SingleGlobalTemporaryTableBulkIdStrategy.BINARY_ID_COLUMN));
+        }
+        final Set<String> idColumns = getIdColumns(metadata);
+        for (IdTableMetadata table : tables) {
+            checkColumns(table, idColumns);
+            checkTemporarySemantics(table);
+        }
+        for (IdTableMetadata table : tables) {
+            checkIdTypes(table, metadata);
+        }
+        final Set<Integer> deletingRowsOnCommit = new HashSet<>();
+        for (IdTableMetadata table : tables) {
+            if (Boolean.TRUE.equals(table.isDeleteRowsOnCommit())) {
+                deletingRowsOnCommit.add(tableNames.indexOf(table.getTableName()));
+            }
+        }
+        settings.setShardsDeletingRowsOnCommit(deletingRowsOnCommit);
+
+        final boolean anyPermanent = tables.stream().anyMatch(table -> Boolean.FALSE.equals(table.isTemporary()));
+        final boolean allDeleteRowsOnCommit = !tables.isEmpty() && tables.stream().allMatch(table -> Boolean.TRUE.equals(table.isDeleteRowsOnCommit()));
+        if (settings.isCleanRowsChosenByIntrospection() && anyPermanent) {
+            log.infof("ID tables %s include a permanent table, so staged rows are deleted after each operation (%s)", tableNames,
+                    SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS);
+            settings.setCleanRows(true);
+        } else if (!settings.isCleanRows() && anyPermanent) {
+            log.warnf("ID tables %s include a permanent table, but %s is not enabled, so staged rows will accumulate", tableNames,
+                    SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS);
+        } else if (settings.isCleanRows() && allDeleteRowsOnCommit && settings.getCleanupMode() == CleanupMode.IMMEDIATE) {
+            log.warnf("ID tables %s delete their rows on commit, so deleting staged rows (%s) only adds statements", tableNames,
+                    SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS);
+        }
+    }
+
+    /**
+     * @param idColumns columns IDs of entities are staged in
+     */
+    private void checkColumns(IdTableMetadata table, Set<String> idColumns) {
+        final String discriminatorColumn = settings.getDiscriminatorColumn();
+        final Set<String> columns = new LinkedHashSet<>(idColumns);
+        columns.add(discriminatorColumn);
+        columns.add(settings.getOperationIdColumn());
+        for (String column : columns) {
+            if (column != null && !table.hasColumn(column)) {
+                log.warnf("Column %s does not exist in ID table %s, so bulk operations will fail", column, table.getTableName());
+            }
+        }
+        final Integer discriminatorType = table.getColumnType(discriminatorColumn);
+        if (discriminatorType != null && isNumeric(discriminatorType) != settings.isNumericDiscriminator()) {
+            log.warnf("Discriminator column %s of ID table %s is not of the %s type expected by %s, so discriminators need conversions or fail to compare",
+                    discriminatorColumn, table.getTableName(), settings.isNumericDiscriminator() ? "numeric" : "string",
+                    SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_TYPE);
+        }
+    }
+
+    /**
+     * @return columns IDs of entities are staged in, so that {@link SingleGlobalTemporaryTableBulkIdStrategy#ID_COLUMN} is not required when all entities use typed ID columns
+     */
+    private Set<String> getIdColumns(MetadataImplementor metadata) {
+        final MetamodelImplementor metamodel = metadata.getTypeConfiguration().getSessionFactory().getMetamodel();
+        final Set<String> result = new TreeSet<>();
+        for (PersistentClass entityBinding : metadata.getEntityBindings()) {
+            final EntityPersister persister = metamodel.entityPersister(entityBinding.getEntityName());
+            if (persister instanceof Queryable) {
+                result.add(settings.getIdColumn((Queryable) persister));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the typed ID column, or {@code null} if the table does not have it, so that IDs are staged in
+     *         {@link SingleGlobalTemporaryTableBulkIdStrategy#ID_COLUMN} instead
+     */
+    private String checkTypedIdColumn(IdTableMetadata table, String column, String setting) {
+        if (column == null || table.hasColumn(column)) {
+            return column;
+        }
+        log.warnf("Column %s set by %s does not exist in ID table %s, so IDs are staged in %s instead", column, setting, table.getTableName(),
+                settings.getIdColumn());
+        return null;
+    }
+
+    private void checkTemporarySemantics(IdTableMetadata table) {
+        if (!Boolean.FALSE.equals(table.isTemporary())) {
+            return;
+        }
+        // rows of temporary tables are private to the session, so scanning them is cheap and nobody else sees them
+        final String idColumn = settings.getIdColumn();
+        final String discriminatorColumn = settings.getDiscriminatorColumn();
+        final String operationIdColumn = settings.getOperationIdColumn();
+        if (operationIdColumn == null) {
+            log.warnf("ID table %s is a permanent table shared by all sessions, so concurrent operations on the same entity will see each other's IDs "
+                    + "unless %s is set", table.getTableName(), SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN);
+        }
+        if (!table.hasIndexStartingWith(discriminatorColumn) && !table.hasIndexStartingWith(idColumn)
+                && (operationIdColumn == null || !table.hasIndexStartingWith(operationIdColumn))) {
+            log.warnf("Permanent ID table %s has no index on (%s, %s), so ID subselects and cleanup will scan rows of all sessions", table.getTableName(),
+                    discriminatorColumn, idColumn);
+        }
+        if (settings.isCleanRows() && settings.getCleanupMode() == CleanupMode.TRUNCATE) {
+            log.warnf("ID table %s is a permanent table, so %s truncate also deletes rows staged by other sessions", table.getTableName(),
+                    SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE);
+        }
+    }
+
+    /**
+     * Reports entities whose IDs are staged in a column of another kind of type, as comparing them needs conversions that may prevent index use
+     */
+    private void checkIdTypes(IdTableMetadata table, MetadataImplementor metadata) {
+        final MetamodelImplementor metamodel = metadata.getTypeConfiguration().getSessionFactory().getMetamodel();
+        final Map<String, List<String>> mismatchedEntityNames = new TreeMap<>();
+        for (PersistentClass entityBinding : metadata.getEntityBindings()) {
+            final EntityPersister persister = metamodel.entityPersister(entityBinding.getEntityName());
+            if (!(persister instanceof Queryable) || !((Queryable) persister).isMultiTable()) {
+                continue;
+            }
+            final int[] idTypes = persister.getIdentifierType().sqlTypes(persister.getFactory());
+            final String column = settings.getIdColumn((Queryable) persister);
+            final Integer columnType = table.getColumnType(column);
+            if (idTypes.length == 1 && columnType != null && getTypeKind(idTypes[0]) != getTypeKind(columnType)) {
+                mismatchedEntityNames.computeIfAbsent(column, key -> new ArrayList<>()).add(entityBinding.getEntityName());
+            }
+        }
+        mismatchedEntityNames.forEach((column, entityNames) -> log.warnf("IDs of %s are compared with column %s of ID table %s of another type, "
+                + "which needs conversions; stage them in a column of a matching type, see %s and %s", entityNames, column, table.getTableName(),
+                SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN, SingleGlobalTemporaryTableBulkIdStrategy.BINARY_ID_COLUMN));
+    }
+
+    private static boolean isNumeric(int jdbcType) {
+        return getTypeKind(jdbcType) == Types.NUMERIC;
+    }
+
+    /**
+     * @return {@link Types#NUMERIC}, {@link Types#VARCHAR} or {@link Types#BINARY} for numeric, character and binary types, the type itself otherwise
+     */
+    private static int getTypeKind(int jdbcType) {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return Types.NUMERIC;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return Types.VARCHAR;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return Types.BINARY;
+            default:
+                return jdbcType;
+        }
+    }
+}
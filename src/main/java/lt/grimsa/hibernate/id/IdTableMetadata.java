@@ -0,0 +1,177 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+
+/**
+ * Layout of an ID table as reported by the database when the strategy is prepared, see
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#INTROSPECT_TABLE}: its columns and their JDBC types, the leading columns of its indexes and
+ * whether it is a temporary table that deletes its rows on commit. {@link DatabaseMetaData} does not tell temporary tables apart on every
+ * database, so Oracle and H2 catalogs are queried as well; what cannot be determined is reported as {@code null}.
+ */
+final class IdTableMetadata {
+    private final String tableName;
+    private final Map<String, Integer> columnTypes;
+    private final List<String> indexLeadingColumns;
+    private final Boolean temporary;
+    private final Boolean deleteRowsOnCommit;
+
+    private IdTableMetadata(String tableName, Map<String, Integer> columnTypes, List<String> indexLeadingColumns, Boolean temporary,
+            Boolean deleteRowsOnCommit) {
+        this.tableName = tableName;
+        this.columnTypes = columnTypes;
+        this.indexLeadingColumns = indexLeadingColumns;
+        this.temporary = temporary;
+        this.deleteRowsOnCommit = deleteRowsOnCommit;
+    }
+
+    /**
+     * @param qualifiedTableName table name as configured, optionally qualified with a schema (and catalog)
+     * @return layout of the table, or {@code null} if it does not exist
+     */
+    static IdTableMetadata read(Connection connection, Dialect dialect, String qualifiedTableName) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        final String[] parts = qualifiedTableName.split("\\.");
+        final String tableName = toStoredCase(metaData, parts[parts.length - 1]);
+        final String schema = parts.length > 1 ? toStoredCase(metaData, parts[parts.length - 2]) : null;
+        final String catalog = parts.length > 2 ? toStoredCase(metaData, parts[0]) : null;
+
+        final String tableType;
+        try (ResultSet rs = metaData.getTables(catalog, schema, tableName, null)) {
+            if (!rs.next()) {
+                return null;
+            }
+            tableType = rs.getString("TABLE_TYPE");
+        }
+
+        final Map<String, Integer> columnTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (ResultSet rs = metaData.getColumns(catalog, schema, tableName, null)) {
+            while (rs.next()) {
+                columnTypes.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+            }
+        }
+
+        final List<String> indexLeadingColumns = new ArrayList<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, tableName, false, true)) {
+            while (rs.next()) {
+                if (rs.getShort("ORDINAL_POSITION") == 1 && rs.getString("COLUMN_NAME") != null) {
+                    indexLeadingColumns.add(rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+
+        Boolean temporary = tableType != null && tableType.toUpperCase(Locale.ROOT).contains("TEMPORARY") ? Boolean.TRUE : null;
+        Boolean deleteRowsOnCommit = null;
+        if (dialect instanceof Oracle8iDialect) {
+            final Map<String, String> row = queryCatalog(connection, "select temporary, duration from all_tables where table_name = ?"
+                    + (schema != null ? " and owner = ?" : " and owner = user"), tableName, schema);
+            if (row != null) {
+                temporary = "Y".equals(row.get("TEMPORARY"));
+                deleteRowsOnCommit = temporary ? "SYS$TRANSACTION".equals(row.get("DURATION")) : Boolean.FALSE;
+            }
+        } else if (dialect instanceof H2Dialect && temporary == null) {
+            final Map<String, String> row = queryCatalog(connection, "select storage_type from information_schema.tables where table_name = ?"
+                    + (schema != null ? " and table_schema = ?" : ""), tableName, schema);
+            if (row != null && row.get("STORAGE_TYPE") != null) {
+                temporary = row.get("STORAGE_TYPE").contains("TEMPORARY");
+            }
+        }
+        if (temporary == null && "TABLE".equalsIgnoreCase(tableType) && !(dialect instanceof Oracle8iDialect)) {
+            temporary = Boolean.FALSE;
+        }
+        if (Boolean.FALSE.equals(temporary)) {
+            deleteRowsOnCommit = Boolean.FALSE;
+        }
+        return new IdTableMetadata(qualifiedTableName, columnTypes, Collections.unmodifiableList(indexLeadingColumns), temporary, deleteRowsOnCommit);
+    }
+
+    private static String toStoredCase(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (identifier.startsWith("\"") && identifier.endsWith("\"")) {
+            return identifier.substring(1, identifier.length() - 1);
+        }
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        return metaData.storesLowerCaseIdentifiers() ? identifier.toLowerCase(Locale.ROOT) : identifier;
+    }
+
+    /**
+     * @return the first row of the query with upper-case column labels, or {@code null} if there is none or the catalog cannot be read
+     */
+    private static Map<String, String> queryCatalog(Connection connection, String sql, String tableName, String schema) {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, tableName);
+            if (schema != null) {
+                ps.setString(2, schema);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                final Map<String, String> row = new HashMap<>();
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    row.put(rs.getMetaData().getColumnLabel(i).toUpperCase(Locale.ROOT), rs.getString(i));
+                }
+                return row;
+            }
+        } catch (SQLException e) {
+            // e.g. no privilege to read the catalog, which only leaves the temporary table semantics unknown
+            return null;
+        }
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    boolean hasColumn(String column) {
+        return columnTypes.containsKey(unquote(column));
+    }
+
+    /**
+     * @return JDBC type of the column, see {@link Types}, or {@code null} if there is no such column
+     */
+    Integer getColumnType(String column) {
+        return columnTypes.get(unquote(column));
+    }
+
+    /**
+     * @return whether an index of the table starts with the column, so that lookups by it do not scan the whole table
+     */
+    boolean hasIndexStartingWith(String column) {
+        return indexLeadingColumns.contains(unquote(column).toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return whether rows of the table are private to the session, or {@code null} if not known
+     */
+    Boolean isTemporary() {
+        return temporary;
+    }
+
+    /**
+     * @return whether the table is a temporary table deleting its rows on commit, or {@code null} if not known
+     */
+    Boolean isDeleteRowsOnCommit() {
+        return deleteRowsOnCommit;
+    }
+
+    private static String unquote(String column) {
+        return column.startsWith("\"") && column.endsWith("\"") ? column.substring(1, column.length() - 1) : column;
+    }
+}
@@ -0,0 +1,45 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rows staged by bulk operations of a single transaction, to be cleaned up in one statement per ID table when the transaction completes. Values are
+ * kept per ID table, so that the statement for each table only lists the operations that staged rows in it.
+ */
+final class PendingCleanup {
+    private final Map<Integer, Set<Object>> discriminatorValues = new LinkedHashMap<>();
+    private final Map<Integer, Set<Long>> operationIds = new LinkedHashMap<>();
+
+    void add(int shard, Object discriminatorValue, Long operationId) {
+        discriminatorValues.computeIfAbsent(shard, key -> new LinkedHashSet<>()).add(discriminatorValue);
+        final Set<Long> shardOperationIds = operationIds.computeIfAbsent(shard, key -> new LinkedHashSet<>());
+        if (operationId != null) {
+            shardOperationIds.add(operationId);
+        }
+    }
+
+    /**
+     * @return indexes of the ID tables rows were staged in
+     */
+    Set<Integer> getShards() {
+        return discriminatorValues.keySet();
+    }
+
+    /**
+     * @return discriminator values of the entities whose rows were staged in the ID table
+     */
+    Set<Object> getDiscriminatorValues(int shard) {
+        return discriminatorValues.get(shard);
+    }
+
+    /**
+     * @return tokens of the operations that staged rows in the ID table, empty if {@link SingleGlobalTemporaryTableBulkIdStrategy#OPERATION_ID_COLUMN}
+     *         is not set
+     */
+    Set<Long> getOperationIds(int shard) {
+        return operationIds.get(shard);
+    }
+}
@@ -0,0 +1,59 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.List;
+
+/**
+ * SQL fragments and statements for staging IDs of a single entity in the shared ID table, computed once when the strategy is prepared.
+ */
+final class PersisterSql {
+    private final String idColumn;
+    private final Object discriminatorValue;
+    private final String discriminatorLiteral;
+    private final List<String> idSubselects;
+    private final List<String> cleanUpSqls;
+
+    PersisterSql(String idColumn, Object discriminatorValue, String discriminatorLiteral, List<String> idSubselects, List<String> cleanUpSqls) {
+        this.idColumn = idColumn;
+        this.discriminatorValue = discriminatorValue;
+        this.discriminatorLiteral = discriminatorLiteral;
+        this.idSubselects = idSubselects;
+        this.cleanUpSqls = cleanUpSqls;
+    }
+
+    /**
+     * @return column of the ID table holding the entity's IDs
+     */
+    String getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * @return value (entity name or numeric code) stored in the discriminator column for the entity's rows
+     */
+    Object getDiscriminatorValue() {
+        return discriminatorValue;
+    }
+
+    /**
+     * @return discriminator value rendered as an SQL literal, used in the select clause of the ID insert-select
+     */
+    String getDiscriminatorLiteral() {
+        return discriminatorLiteral;
+    }
+
+    /**
+     * @param shard index of the ID table, as listed in {@link SingleGlobalTemporaryTableBulkIdStrategy#TABLE}
+     * @return subselect of the entity's staged IDs, used in the where clause of update/delete statements
+     */
+    String getIdSubselect(int shard) {
+        return idSubselects.get(shard);
+    }
+
+    /**
+     * @param shard index of the ID table, as listed in {@link SingleGlobalTemporaryTableBulkIdStrategy#TABLE}
+     * @return statement deleting the entity's staged rows, taking the discriminator value (and the operation id, if used) as parameters
+     */
+    String getCleanUpSql(int shard) {
+        return cleanUpSqls.get(shard);
+    }
+}
@@ -0,0 +1,173 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
+import org.jboss.logging.Logger;
+
+import lt.grimsa.hibernate.id.BulkOperationListener.Phase;
+import lt.grimsa.hibernate.id.StrategySettings.CleanupMode;
+
+/**
+ * Deletes rows staged by bulk operations, right after each operation or when its transaction completes, as configured by
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEANUP_MODE}. Rows left for the end of a transaction are tracked per session.
+ */
+final class RowCleanup {
+    // logged under the strategy's category, where users look for its messages
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+    /**
+     * Most values bound into a single {@code IN} list by deferred cleanup, kept below Oracle's limit of 1000 list elements and SQL Server's limit of
+     * 2100 parameters
+     */
+    private static final int MAX_CLEANUP_IN_LIST_SIZE = 1000;
+
+    private final Map<SharedSessionContractImplementor, PendingCleanup> pendingCleanups = Collections.synchronizedMap(new WeakHashMap<>());
+    private final StrategySettings settings;
+    private final StatementExecutor executor;
+    private final Function<Queryable, PersisterSql> persisterSql;
+
+    /**
+     * @param executor reports cleanup statements to the listener
+     * @param persisterSql looks up precomputed SQL of an entity
+     */
+    RowCleanup(StrategySettings settings, StatementExecutor executor, Function<Queryable, PersisterSql> persisterSql) {
+        this.settings = settings;
+        this.executor = executor;
+        this.persisterSql = persisterSql;
+    }
+
+    /**
+     * Cleans up rows staged by an operation, either immediately or at the end of the transaction, as configured by {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEANUP_MODE}
+     */
+    void scheduleCleanUp(SharedSessionContractImplementor session, Queryable persister, int shard, Long operationId) {
+        if (settings.getCleanupMode() == CleanupMode.IMMEDIATE || !(session instanceof SessionImplementor) || !session.isTransactionInProgress()) {
+            cleanUpRows(session, persister, shard, operationId);
+            return;
+        }
+        deferCleanUp((SessionImplementor) session, persister, shard, operationId);
+    }
+
+    /**
+     * Leaves rows staged by an operation to be deleted when the transaction completes
+     */
+    void deferCleanUp(SessionImplementor session, Queryable persister, int shard, Long operationId) {
+        PendingCleanup pendingCleanup = pendingCleanups.get(session);
+        if (pendingCleanup == null) {
+            pendingCleanup = new PendingCleanup();
+            pendingCleanups.put(session, pendingCleanup);
+            final ActionQueue actionQueue = session.getActionQueue();
+            actionQueue.registerProcess((BeforeTransactionCompletionProcess) this::cleanUpPendingRows);
+            // rows of a rolled back transaction are gone anyway, only forget about them
+            actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, completedSession) -> pendingCleanups.remove(completedSession));
+        }
+        pendingCleanup.add(shard, persisterSql.apply(persister).getDiscriminatorValue(), operationId);
+    }
+
+    /**
+     * Without {@link SingleGlobalTemporaryTableBulkIdStrategy#OPERATION_ID_COLUMN}, rows left for deferred cleanup by an earlier operation on the
+     * same entity would be matched again by the next one, so they are cleaned up before staging
+     */
+    void cleanUpEarlierRows(SharedSessionContractImplementor session, Queryable persister) {
+        final PendingCleanup pendingCleanup = pendingCleanups.get(session);
+        if (pendingCleanup == null) {
+            return;
+        }
+        for (int shard : pendingCleanup.getShards()) {
+            if (pendingCleanup.getDiscriminatorValues(shard).contains(persisterSql.apply(persister).getDiscriminatorValue())) {
+                cleanUpRows(session, persister, shard, null);
+            }
+        }
+    }
+
+    void cleanUpRows(SharedSessionContractImplementor session, Queryable persister, int shard, Long operationId) {
+        final PersisterSql entitySql = persisterSql.apply(persister);
+        final String sql = entitySql.getCleanUpSql(shard);
+        final long startNanos = executor.phaseStarted(persister, Phase.CLEANUP, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            settings.getDiscriminatorType().nullSafeSet(ps, entitySql.getDiscriminatorValue(), 1, session);
+            if (operationId != null) {
+                LongType.INSTANCE.set(ps, operationId, 2, session);
+            }
+            rowCount = session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Unable to clean up id table [" + settings.getTableNames().get(shard) + "]", sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            executor.phaseCompleted(persister, Phase.CLEANUP, null, sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Deletes rows of all operations executed in the completing transaction with a single statement per used table, or several if there are more
+     * than {@link #MAX_CLEANUP_IN_LIST_SIZE} operation IDs or discriminator values. Tables deleting their rows on commit are left to the commit
+     */
+    private void cleanUpPendingRows(SessionImplementor session) {
+        final PendingCleanup pendingCleanup = pendingCleanups.remove(session);
+        if (pendingCleanup == null) {
+            return;
+        }
+        for (int shard : pendingCleanup.getShards()) {
+            final String tableName = settings.getTableNames().get(shard);
+            if (settings.getShardsDeletingRowsOnCommit().contains(shard)) {
+                log.debugf("ID table %s deletes its rows on commit, so its staged rows are not cleaned up", tableName);
+            } else if (settings.getCleanupMode() == CleanupMode.TRUNCATE) {
+                cleanUpPendingRows(session, tableName, "truncate table " + tableName, Collections.emptyList(), null);
+            } else if (!pendingCleanup.getOperationIds(shard).isEmpty()) {
+                cleanUpPendingRowsIn(session, tableName, settings.getOperationIdColumn(), new ArrayList<>(pendingCleanup.getOperationIds(shard)),
+                        LongType.INSTANCE);
+            } else {
+                cleanUpPendingRowsIn(session, tableName, settings.getDiscriminatorColumn(), new ArrayList<>(pendingCleanup.getDiscriminatorValues(shard)),
+                        settings.getDiscriminatorType());
+            }
+        }
+    }
+
+    private void cleanUpPendingRowsIn(SessionImplementor session, String tableName, String column, List<Object> values, Type type) {
+        for (int from = 0; from < values.size(); from += MAX_CLEANUP_IN_LIST_SIZE) {
+            final List<Object> chunk = values.subList(from, Math.min(from + MAX_CLEANUP_IN_LIST_SIZE, values.size()));
+            cleanUpPendingRows(session, tableName, settings.withHints("delete from " + tableName + " where " + column + " in ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")", settings.getCleanupHints()), chunk, type);
+        }
+    }
+
+    private void cleanUpPendingRows(SessionImplementor session, String tableName, String sql, List<Object> values, Type type) {
+        final long startNanos = executor.phaseStarted(null, Phase.CLEANUP, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            for (int i = 0; i < values.size(); i++) {
+                type.nullSafeSet(ps, values.get(i), i + 1, session);
+            }
+            rowCount = session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Unable to clean up id table [" + tableName + "]", sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            executor.phaseCompleted(null, Phase.CLEANUP, null, sql, rowCount, startNanos);
+        }
+    }
+}
@@ -1,29 +1,92 @@
 package lt.grimsa.hibernate.id;
 
+import java.io.Serializable;
+import java.security.SecureRandom;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Objects;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import antlr.collections.AST;
+import org.hibernate.HibernateException;
+import org.hibernate.QueryException;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.selector.spi.StrategySelector;
 import org.hibernate.boot.spi.MetadataImplementor;
 import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.config.spi.ConfigurationService;
-import org.hibernate.engine.config.spi.StandardConverters;
 import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
 import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.QueryParameters;
+import org.hibernate.engine.spi.RowSelection;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.engine.spi.TypedValue;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
 import org.hibernate.hql.internal.ast.HqlSqlWalker;
+import org.hibernate.hql.internal.ast.tree.AssignmentSpecification;
 import org.hibernate.hql.internal.ast.tree.DeleteStatement;
+import org.hibernate.hql.internal.ast.tree.DotNode;
+import org.hibernate.hql.internal.ast.tree.FromElement;
+import org.hibernate.hql.internal.ast.tree.FromReferenceNode;
+import org.hibernate.hql.internal.ast.tree.IdentNode;
+import org.hibernate.hql.internal.ast.tree.SqlFragment;
 import org.hibernate.hql.internal.ast.tree.UpdateStatement;
 import org.hibernate.hql.spi.id.IdTableInfo;
 import org.hibernate.hql.spi.id.MultiTableBulkIdStrategy;
 import org.hibernate.hql.spi.id.TableBasedDeleteHandlerImpl;
 import org.hibernate.hql.spi.id.TableBasedUpdateHandlerImpl;
 import org.hibernate.hql.spi.id.global.GlobalTemporaryTableBulkIdStrategy;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.param.NamedParameterSpecification;
+import org.hibernate.param.ParameterSpecification;
+import org.hibernate.param.PositionalParameterSpecification;
 import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.persister.entity.Queryable;
+import org.hibernate.persister.spi.PersisterCreationContext;
+import org.hibernate.persister.spi.PersisterFactory;
+import org.hibernate.query.Query;
+import org.hibernate.sql.InsertSelect;
+import org.hibernate.sql.Select;
 import org.hibernate.sql.SelectValues;
-import org.hibernate.type.StringType;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.Type;
+import org.jboss.logging.Logger;
+
+import lt.grimsa.hibernate.id.BulkOperationListener.Phase;
 
 /**
  * A strategy resembling {@link GlobalTemporaryTableBulkIdStrategy} modified to use a single "global temporary table" created beforehand (e.g.
@@ -31,42 +94,325 @@ import org.hibernate.type.StringType;
  * <p>
  * Can be useful in environments where DDL statements cannot be executed from application and managing a large number of ID tables is not practical.
  * <p>
- * <b>Note:</b> multicolumn IDs or inconsistent ID types were not tested and will likely NOT work.
+ * Entities with different ID types can be staged in separate typed columns, see {@link #NUMERIC_ID_COLUMN} and {@link #BINARY_ID_COLUMN}.
+ * <p>
+ * <b>Note:</b> multicolumn IDs were not tested and will likely NOT work.
  */
 public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkIdStrategy {
 
     /**
-     * Fully qualified name of the table to use
+     * Fully qualified name of the table to use. May also be a comma-separated list of identically structured tables, in which case each bulk
+     * operation stages its IDs in one of them, as chosen by {@link #SHARD_ROUTING}. Useful to reduce contention when permanent tables are used
      */
     public static final String TABLE = "hibernate.hql.bulk_id_strategy.single_global_temporary.table";
 
     /**
-     * Column to be used as entity id. Defaults to {@code ID}
+     * How an operation chooses its table when {@link #TABLE} lists several: {@code session} (default) by session identity, so that a session always
+     * uses the same table, {@code thread} by the executing thread, or {@code round_robin}
+     */
+    public static final String SHARD_ROUTING = "hibernate.hql.bulk_id_strategy.single_global_temporary.shard_routing";
+
+    /**
+     * Column to be used as entity id, unless the id is routed to one of the typed columns below. Defaults to {@code ID}
      */
     public static final String ID_COLUMN = "hibernate.hql.bulk_id_strategy.single_global_temporary.id_column";
 
+    /**
+     * Column (e.g. {@code NUMERIC_ID BIGINT}) to be used for entity ids of integer or decimal types, so that they are compared without
+     * conversions. Not set by default
+     */
+    public static final String NUMERIC_ID_COLUMN = "hibernate.hql.bulk_id_strategy.single_global_temporary.numeric_id_column";
+
+    /**
+     * Column (e.g. {@code BINARY_ID BINARY(16)}) to be used for entity ids of binary types, such as binary UUIDs. Not set by default
+     */
+    public static final String BINARY_ID_COLUMN = "hibernate.hql.bulk_id_strategy.single_global_temporary.binary_id_column";
+
     /**
      * Column to be used as entity discriminator. Defaults to {@code ENTITY_NAME}
      */
     public static final String DISCRIMINATOR_COLUMN = "hibernate.hql.bulk_id_strategy.single_global_temporary.discriminator_column";
 
     /**
-     * Whether ID rows should be deleted after update/delete is processed. Defaults to {@code false}
+     * Whether ID rows should be deleted after update/delete is processed. When not set, defaults to {@code true} if {@link #INTROSPECT_TABLE} is set
+     * explicitly and finds that the table is permanent, and to {@code false} otherwise
      */
     public static final String CLEAN_ROWS = "hibernate.hql.bulk_id_strategy.single_global_temporary.clean_rows";
 
-    private String fullyQualifiedTableName;
-    private String idColumn;
-    private String discriminatorColumn;
-    private boolean cleanRows;
+    /**
+     * When ID rows are deleted if {@link #CLEAN_ROWS} is set: {@code immediate} (default) after each bulk operation, {@code deferred} in a single
+     * statement for all operations of a transaction just before it commits, or {@code truncate} by truncating the table before commit (only suitable
+     * for temporary tables, whose contents are private to the session). {@code truncate} is only used on PostgreSQL and SQL Server, where it does
+     * not commit the transaction; other dialects fall back to {@code deferred}. Operations executed outside of a transaction, or by a stateless session,
+     * are always cleaned up immediately. {@code deferred} and {@code truncate} leave tables that {@link #INTROSPECT_TABLE} finds to delete their rows on
+     * commit to the commit itself
+     */
+    public static final String CLEANUP_MODE = "hibernate.hql.bulk_id_strategy.single_global_temporary.cleanup_mode";
+
+    /**
+     * Column (e.g. {@code OPERATION_ID BIGINT}) to be used for tagging rows with a token unique to each bulk operation. When set, ID subselects and
+     * row cleanup only match rows staged by the same operation, so concurrent or repeated operations on the same entity do not see each other's IDs.
+     * Not set by default
+     */
+    public static final String OPERATION_ID_COLUMN = "hibernate.hql.bulk_id_strategy.single_global_temporary.operation_id_column";
+
+    /**
+     * Sequence to draw operation tokens from when {@link #OPERATION_ID_COLUMN} is set. If not set, tokens are generated by an in-memory counter with
+     * a random starting point, which is sufficient unless many JVMs share a permanent ID table
+     */
+    public static final String OPERATION_ID_SEQUENCE = "hibernate.hql.bulk_id_strategy.single_global_temporary.operation_id_sequence";
+
+    /**
+     * Whether the discriminator value should be bound as a JDBC parameter instead of being inlined as a literal, so that statements for all
+     * entities share the same SQL text. Defaults to {@code false}
+     */
+    public static final String BIND_DISCRIMINATOR = "hibernate.hql.bulk_id_strategy.single_global_temporary.bind_discriminator";
+
+    /**
+     * Type of values stored in the discriminator column: {@code string} (entity names, the default) or {@code numeric} (compact integer codes, see
+     * {@link #DISCRIMINATOR_CODES})
+     */
+    public static final String DISCRIMINATOR_TYPE = "hibernate.hql.bulk_id_strategy.single_global_temporary.discriminator_type";
+
+    /**
+     * Comma separated {@code entityName=code} pairs assigning numeric discriminator codes when {@link #DISCRIMINATOR_TYPE} is {@code numeric}.
+     * Entities not listed get a code derived from a stable hash of their discriminator value
+     */
+    public static final String DISCRIMINATOR_CODES = "hibernate.hql.bulk_id_strategy.single_global_temporary.discriminator_codes";
+
+    /**
+     * Whether bulk updates affecting a single table should be executed as one statement, without staging IDs in the ID table. Deletes always
+     * affect several tables and are not affected. Defaults to {@code false}
+     */
+    public static final String DIRECT_DML = "hibernate.hql.bulk_id_strategy.single_global_temporary.direct_dml";
+
+    /**
+     * {@link BulkOperationListener} notified about phases of bulk operations, given as an instance, class or class name. Not set by default
+     */
+    public static final String LISTENER = "hibernate.hql.bulk_id_strategy.single_global_temporary.listener";
+
+    /**
+     * Whether the per-table statements of a bulk operation should be sent to the database as a single JDBC batch. Only applies to statements without
+     * JDBC parameters, i.e. when neither {@link #BIND_DISCRIMINATOR} nor {@link #OPERATION_ID_COLUMN} is used and (for updates) assigned values are
+     * literals. Rows are cleaned up afterwards by the usual statement, see {@link #CLEAN_ROWS}. Defaults to {@code false}
+     */
+    public static final String BATCH_STATEMENTS = "hibernate.hql.bulk_id_strategy.single_global_temporary.batch_statements";
+
+    /**
+     * Optimizer hints for the insert-select staging IDs (e.g. {@code APPEND} on Oracle), rendered by the dialect's
+     * {@link Dialect#getQueryHintString(String, String)}. Not set by default
+     */
+    public static final String STAGING_HINTS = "hibernate.hql.bulk_id_strategy.single_global_temporary.staging_hints";
+
+    /**
+     * Optimizer hints for the subselect of staged IDs used by per-table statements (e.g. {@code CARDINALITY(HT_TEMP_IDS {rows}) USE_HASH(HT_TEMP_IDS)}
+     * on Oracle), rendered by the dialect. A {@code {rows}} placeholder is replaced with the number of staged IDs rounded up to a power of 10, so that
+     * the estimate is close without producing a distinct statement for every count. Not set by default
+     */
+    public static final String ID_SUBSELECT_HINTS = "hibernate.hql.bulk_id_strategy.single_global_temporary.id_subselect_hints";
+
+    /**
+     * Optimizer hints for statements deleting staged rows, rendered by the dialect. Not set by default
+     */
+    public static final String CLEANUP_HINTS = "hibernate.hql.bulk_id_strategy.single_global_temporary.cleanup_hints";
+
+    /**
+     * How per-table statements are restricted to staged IDs: {@code in} (default) with {@code where (id) IN (select ID from ...)}, {@code exists}
+     * with a correlated {@code EXISTS} subquery, or {@code join} with the dialect's join DML (MySQL/MariaDB, PostgreSQL, SQL Server; other dialects
+     * use {@code exists}). {@link #ID_SUBSELECT_HINTS} and {@link #INLINE_ID_THRESHOLD} only apply to the {@code in} form
+     */
+    public static final String DML_FORM = "hibernate.hql.bulk_id_strategy.single_global_temporary.dml_form";
+
+    /**
+     * Maximum number of IDs staged at once by bulk deletes. When set, deletes are executed in a loop: stage up to this many matching IDs, delete them
+     * from every table, clean up their rows, and repeat until no more rows match. This bounds the size of each statement, but all chunks still run in
+     * the caller's transaction. Updates are not chunked, as updated rows would keep matching the restriction. Not set by default
+     */
+    public static final String CHUNK_SIZE = "hibernate.hql.bulk_id_strategy.single_global_temporary.chunk_size";
+
+    /**
+     * Maximum number of matching IDs to inline into per-table statements instead of staging them in the ID table. When set, matching IDs are first
+     * selected into memory; if there are no more than this many, each table is updated/deleted using an {@code IN (?,?,...)} list, padded to a power
+     * of two to limit the number of distinct statements. Larger sets fall back to the ID table. Only applies to entities with single-column
+     * identifiers. Not set by default
+     */
+    public static final String INLINE_ID_THRESHOLD = "hibernate.hql.bulk_id_strategy.single_global_temporary.inline_id_threshold";
+
+    /**
+     * Whether IDs staged by a bulk operation should be reused by later operations of the same transaction with the same where clause and parameter
+     * values (e.g. an update followed by a delete of the same rows), instead of staging them again. Reused rows are cleaned up when the transaction
+     * completes. Staged IDs are dropped once their entity's tables are changed by another bulk operation or by flushing entities of the session, but
+     * changes made by native SQL queries are not tracked. Bulk operations on entities mapped to a single table are executed by Hibernate without this
+     * strategy, so IDs matched by where clauses reading such tables are never reused. Requires {@link #OPERATION_ID_COLUMN}. Defaults to {@code false}
+     */
+    public static final String REUSE_STAGED_IDS = "hibernate.hql.bulk_id_strategy.single_global_temporary.reuse_staged_ids";
+
+    /**
+     * Maximum number of entities affected by a bulk operation whose second-level cache entries are evicted one by one, instead of the whole entity
+     * region. Their IDs are read back from the ID table before the per-table statements are executed. Operations affecting more entities, e.g. with
+     * no where clause, evict the whole region, as Hibernate does by default. Collection and natural ID regions are still evicted as a whole by
+     * Hibernate. Only applies to entities with single-column identifiers. Not set by default
+     */
+    public static final String CACHE_EVICTION_LIMIT = "hibernate.hql.bulk_id_strategy.single_global_temporary.cache_eviction_limit";
+
+    /**
+     * Whether bulk operations should be executed as a single statement composed of data-modifying common table expressions: the ID select, every
+     * per-table update/delete and the count of matching IDs, without writing to the ID table at all. Only supported by PostgreSQL (9.1 and newer)
+     * dialects and ignored on others, where IDs are staged as usual. Takes the place of {@link #CHUNK_SIZE}, {@link #INLINE_ID_THRESHOLD},
+     * {@link #DML_FORM} and {@link #REUSE_STAGED_IDS}; operations with IDs supplied through {@link BulkIdOperations} are still staged. Not yet
+     * verified against a real PostgreSQL database, only the generated SQL and its parameter binding are tested. Defaults to {@code false}
+     */
+    public static final String WRITABLE_CTE = "hibernate.hql.bulk_id_strategy.single_global_temporary.writable_cte";
+
+    /**
+     * Whether the layout of the tables listed in {@link #TABLE} should be read from the database when the session factory is built. Columns, their
+     * types, indexes and temporary table semantics are checked against the configuration, with a warning logged for each layout that makes bulk
+     * operations fail or perform badly (e.g. a permanent table without an index or {@link #OPERATION_ID_COLUMN}, or IDs compared with a column of
+     * another type). Typed ID columns that do not exist fall back to {@link #ID_COLUMN}. Tables that do not exist yet are skipped. When set explicitly,
+     * the result is also used to choose the default of {@link #CLEAN_ROWS}; otherwise a permanent table without it only logs a warning. Defaults
+     * to {@code true}
+     */
+    public static final String INTROSPECT_TABLE = "hibernate.hql.bulk_id_strategy.single_global_temporary.introspect_table";
+
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+
+    private final Map<SharedSessionContractImplementor, StagedIdCache> stagedIdCaches = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ThreadLocal<Iterator<?>> suppliedIds = new ThreadLocal<>();
+    private final AtomicInteger shardCounter = new AtomicInteger();
+    private final AtomicLong operationIdCounter = new AtomicLong(new SecureRandom().nextLong() >>> 1);
+
+    private StrategySettings settings;
+    private StagedRowsDmlRewriter dmlRewriter;
+    private StatementExecutor executor;
+    private RowCleanup rowCleanup;
+    /**
+     * Tables of entities spanning a single table, whose bulk operations Hibernate executes without this strategy, so that they cannot invalidate
+     * staged IDs
+     */
+    private Set<String> singleTableEntityTableNames;
+    /**
+     * Persisters of cached entities that do not write to the second-level cache, keyed by entity name, see {@link #getCleanupQueryable}
+     */
+    private Map<String, Queryable> uncachedPersisters = Collections.emptyMap();
+    private Map<String, PersisterSql> persisterSql = Collections.emptyMap();
 
     @Override
     public void prepare(JdbcServices jdbcServices, JdbcConnectionAccess connectionAccess, MetadataImplementor metadata, SessionFactoryOptions sessionFactoryOptions) {
-        ConfigurationService configService = sessionFactoryOptions.getServiceRegistry().getService(ConfigurationService.class);
-        this.fullyQualifiedTableName = Objects.requireNonNull(configService.getSetting(TABLE, String.class, null), "Property " + TABLE + " must be set.");
-        this.idColumn = configService.getSetting(ID_COLUMN, String.class, "ID");
-        this.discriminatorColumn = configService.getSetting(DISCRIMINATOR_COLUMN, String.class, "ENTITY_NAME");
-        this.cleanRows = configService.getSetting(CLEAN_ROWS, StandardConverters.BOOLEAN, false);
+        final StandardServiceRegistry serviceRegistry = sessionFactoryOptions.getServiceRegistry();
+        this.settings = new StrategySettings(serviceRegistry.getService(ConfigurationService.class), jdbcServices.getDialect(),
+                serviceRegistry.getService(StrategySelector.class));
+        if (settings.isIntrospectTable()) {
+            new IdTableIntrospector(settings).introspect(connectionAccess, metadata);
+        }
+        this.dmlRewriter = new StagedRowsDmlRewriter(settings.getDmlForm(), settings.getDialect());
+        // built once introspection has settled the ID columns
+        this.persisterSql = buildPersisterSql(metadata);
+        this.executor = new StatementExecutor(settings, this::getPersisterSql, this::generateDiscriminatorValue);
+        this.rowCleanup = new RowCleanup(settings, executor, this::getPersisterSql);
+        if (settings.getCacheEvictionLimit() > 0) {
+            this.uncachedPersisters = buildUncachedPersisters(metadata);
+        }
+        if (settings.isReuseStagedIds()) {
+            registerStagedIdInvalidation(metadata);
+            this.singleTableEntityTableNames = getSingleTableEntityTableNames(metadata);
+        }
+    }
+
+    private void registerStagedIdInvalidation(MetadataImplementor metadata) {
+        final EventListenerRegistry eventListenerRegistry = metadata.getTypeConfiguration().getSessionFactory().getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        final StagedIdInvalidator invalidator = new StagedIdInvalidator();
+        eventListenerRegistry.appendListeners(EventType.POST_INSERT, invalidator);
+        eventListenerRegistry.appendListeners(EventType.POST_UPDATE, invalidator);
+        eventListenerRegistry.appendListeners(EventType.POST_DELETE, invalidator);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_RECREATE, invalidator);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_UPDATE, invalidator);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_REMOVE, invalidator);
+    }
+
+    /**
+     * Builds a second persister of each cached entity spanning several tables through Hibernate's {@link PersisterFactory}, from the same mapping but
+     * without access to the entity cache region. Natural ID cache access is kept, so that Hibernate still evicts that region
+     */
+    private static Map<String, Queryable> buildUncachedPersisters(MetadataImplementor metadata) {
+        final SessionFactoryImplementor factory = metadata.getTypeConfiguration().getSessionFactory();
+        final PersisterFactory persisterFactory = factory.getServiceRegistry().getService(PersisterFactory.class);
+        final PersisterCreationContext creationContext = new PersisterCreationContext() {
+            @Override
+            public SessionFactoryImplementor getSessionFactory() {
+                return factory;
+            }
+
+            @Override
+            public MetadataImplementor getMetadata() {
+                return metadata;
+            }
+        };
+        final Map<String, Queryable> persisters = new HashMap<>();
+        for (PersistentClass entityBinding : metadata.getEntityBindings()) {
+            final EntityPersister persister = factory.getMetamodel().entityPersister(entityBinding.getEntityName());
+            if (persister instanceof Queryable && ((Queryable) persister).isMultiTable() && persister.canWriteToCache()) {
+                persisters.put(entityBinding.getEntityName(), (Queryable) persisterFactory.createEntityPersister(entityBinding, null,
+                        persister.getNaturalIdCacheAccessStrategy(), creationContext));
+            }
+        }
+        return Collections.unmodifiableMap(persisters);
+    }
+
+    private static Set<String> getSingleTableEntityTableNames(MetadataImplementor metadata) {
+        final MetamodelImplementor metamodel = metadata.getTypeConfiguration().getSessionFactory().getMetamodel();
+        final Set<String> tableNames = new HashSet<>();
+        for (PersistentClass entityBinding : metadata.getEntityBindings()) {
+            final EntityPersister persister = metamodel.entityPersister(entityBinding.getEntityName());
+            if (persister instanceof Queryable && !((Queryable) persister).isMultiTable()) {
+                Collections.addAll(tableNames, ((Queryable) persister).getConstraintOrderedTableNameClosure());
+            }
+        }
+        return Collections.unmodifiableSet(tableNames);
+    }
+
+    /**
+     * Precomputes SQL for every queryable entity, so that handlers and cleanup only need to do lookups
+     */
+    private Map<String, PersisterSql> buildPersisterSql(MetadataImplementor metadata) {
+        final MetamodelImplementor metamodel = metadata.getTypeConfiguration().getSessionFactory().getMetamodel();
+        final Map<String, PersisterSql> result = new HashMap<>();
+        final Map<Object, String> entityNamesByDiscriminator = new HashMap<>();
+        for (PersistentClass entityBinding : metadata.getEntityBindings()) {
+            final String entityName = entityBinding.getEntityName();
+            final EntityPersister persister = metamodel.entityPersister(entityName);
+            if (persister instanceof Queryable) {
+                final PersisterSql sql = createPersisterSql((Queryable) persister);
+                final String clashingEntityName = entityNamesByDiscriminator.putIfAbsent(sql.getDiscriminatorValue(), entityName);
+                if (clashingEntityName != null) {
+                    throw new HibernateException("Entities " + clashingEntityName + " and " + entityName + " have the same discriminator value [" + sql.getDiscriminatorValue() + "]");
+                }
+                result.put(entityName, sql);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private PersisterSql createPersisterSql(Queryable persister) {
+        final Object discriminatorValue = getDiscriminator(persister);
+        final List<String> idSubselects = new ArrayList<>();
+        final List<String> cleanUpSqls = new ArrayList<>();
+        for (String tableName : settings.getTableNames()) {
+            idSubselects.add(settings.withHints(getTempTableIdSubselect(() -> tableName, persister), settings.getIdSubselectHints()));
+            cleanUpSqls.add(settings.withHints("delete from " + tableName + " where " + settings.getDiscriminatorColumn() + "=?"
+                    + (settings.getOperationIdColumn() != null ? " and " + settings.getOperationIdColumn() + "=?" : ""), settings.getCleanupHints()));
+        }
+        return new PersisterSql(
+                settings.getIdColumn(persister),
+                discriminatorValue,
+                settings.toDiscriminatorLiteral(discriminatorValue),
+                idSubselects,
+                cleanUpSqls);
+    }
+
+    private PersisterSql getPersisterSql(Queryable persister) {
+        final PersisterSql sql = persisterSql.get(persister.getEntityName());
+        return sql != null ? sql : createPersisterSql(persister);
     }
 
     @Override
@@ -75,14 +421,40 @@ public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkI
 
     @Override
     public UpdateHandler buildUpdateHandler(SessionFactoryImplementor factory, HqlSqlWalker walker) {
+        // the staging handler is still needed for operations with supplied IDs
+        final DirectDmlHandler directDmlHandler = settings.isDirectDml() ? DirectDmlHandler.forUpdate(factory, walker) : null;
         final UpdateStatement updateStatement = (UpdateStatement) walker.getAST();
-        final Queryable targetedPersister = updateStatement.getFromClause().getFromElement().getQueryable();
+        final FromElement fromElement = updateStatement.getFromClause().getFromElement();
+        final Queryable targetedPersister = fromElement.getQueryable();
 
         return new TableBasedUpdateHandlerImpl(factory, walker, this::getTableName) {
+            private final List<StagedBulkOperation> operations;
+            private final WritableCteStatement writableCteStatement;
+            private final Queryable cleanupQueryable;
+
+            {
+                final ProcessedWhereClause whereClause = processWhereClause(updateStatement.getWhereClause());
+                final Select idSelect = generateIdSelect(fromElement.getTableAlias(), whereClause);
+                final StagedBulkOperation operation = new StagedBulkOperation(
+                        "bulk update",
+                        targetedPersister,
+                        0,
+                        canInlineIds(targetedPersister) ? idSelect.toStatementString() : null,
+                        createIdInsertSelect(factory, targetedPersister, idSelect),
+                        null,
+                        whereClause.getIdSelectParameterSpecifications(),
+                        createUpdateStatements(walker, targetedPersister, super.getSqlStatements()),
+                        getRestrictionTableNames(walker, targetedPersister),
+                        isRestrictionPreserved(walker, updateStatement));
+                operations = createShardOperations(operation);
+                writableCteStatement = createWritableCteStatement(operation, idSelect);
+                // assigned last, as SQL generation above also uses getTargetedQueryable()
+                cleanupQueryable = getCleanupQueryable(targetedPersister);
+            }
 
             @Override
             protected String generateIdSubselect(Queryable persister, IdTableInfo idTableInfo) {
-                return getTempTableIdSubselect(idTableInfo, targetedPersister);
+                return getPersisterSql(targetedPersister).getIdSubselect(0);
             }
 
             @Override
@@ -91,10 +463,21 @@ public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkI
             }
 
             @Override
-            protected void releaseFromUse(Queryable persister, SharedSessionContractImplementor session) {
-                if (cleanRows) {
-                    cleanUpRows(session, targetedPersister);
+            public Queryable getTargetedQueryable() {
+                return cleanupQueryable != null ? cleanupQueryable : super.getTargetedQueryable();
+            }
+
+            @Override
+            public String[] getSqlStatements() {
+                return directDmlHandler != null ? directDmlHandler.getSqlStatements() : super.getSqlStatements();
+            }
+
+            @Override
+            public int execute(SharedSessionContractImplementor session, QueryParameters queryParameters) {
+                if (directDmlHandler != null && suppliedIds.get() == null) {
+                    return executeDirectDml(directDmlHandler, targetedPersister, session, queryParameters);
                 }
+                return SingleGlobalTemporaryTableBulkIdStrategy.this.execute(operations, writableCteStatement, session, queryParameters);
             }
         };
     }
@@ -102,18 +485,42 @@ public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkI
     @Override
     public DeleteHandler buildDeleteHandler(SessionFactoryImplementor factory, HqlSqlWalker walker) {
         final DeleteStatement deleteStatement = (DeleteStatement) walker.getAST();
-        final Queryable targetedPersister = deleteStatement.getFromClause().getFromElement().getQueryable();
+        final FromElement fromElement = deleteStatement.getFromClause().getFromElement();
+        final Queryable targetedPersister = fromElement.getQueryable();
 
         return new TableBasedDeleteHandlerImpl(factory, walker, this::getTableName) {
+            private final List<StagedBulkOperation> operations;
+            private final WritableCteStatement writableCteStatement;
+            private final Queryable cleanupQueryable;
+
+            {
+                final ProcessedWhereClause whereClause = processWhereClause(deleteStatement.getWhereClause());
+                final Select idSelect = generateIdSelect(fromElement.getTableAlias(), whereClause);
+                final StagedBulkOperation operation = new StagedBulkOperation(
+                        "bulk delete",
+                        targetedPersister,
+                        0,
+                        canInlineIds(targetedPersister) ? idSelect.toStatementString() : null,
+                        createIdInsertSelect(factory, targetedPersister, idSelect),
+                        settings.getChunkSize() > 0 ? createIdInsertSelect(factory, targetedPersister, limitToChunk(factory, idSelect)) : null,
+                        whereClause.getIdSelectParameterSpecifications(),
+                        createDeleteStatements(factory, targetedPersister, super.getSqlStatements()),
+                        getRestrictionTableNames(walker, targetedPersister),
+                        false);
+                operations = createShardOperations(operation);
+                writableCteStatement = createWritableCteStatement(operation, idSelect);
+                // assigned last, as SQL generation above also uses getTargetedQueryable()
+                cleanupQueryable = getCleanupQueryable(targetedPersister);
+            }
 
             @Override
             protected String generateIdSubselect(Queryable persister, IdTableInfo idTableInfo) {
-                return getTempTableIdSubselect(idTableInfo, targetedPersister);
+                return getPersisterSql(targetedPersister).getIdSubselect(0);
             }
 
             @Override
             protected String generateIdSubselect(Queryable persister, AbstractCollectionPersister cPersister, IdTableInfo idTableInfo) {
-                return getTempTableIdSubselect(idTableInfo, targetedPersister);
+                return getPersisterSql(targetedPersister).getIdSubselect(0);
             }
 
             @Override
@@ -122,27 +529,578 @@ public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkI
             }
 
             @Override
-            protected void releaseFromUse(Queryable persister, SharedSessionContractImplementor session) {
-                if (cleanRows) {
-                    cleanUpRows(session, persister);
+            public Queryable getTargetedQueryable() {
+                return cleanupQueryable != null ? cleanupQueryable : super.getTargetedQueryable();
+            }
+
+            @Override
+            public int execute(SharedSessionContractImplementor session, QueryParameters queryParameters) {
+                return SingleGlobalTemporaryTableBulkIdStrategy.this.execute(operations, writableCteStatement, session, queryParameters);
+            }
+        };
+    }
+
+    /**
+     * Hibernate evicts the whole entity cache region of the queryable returned by a handler before executing it. When evictions are targeted (see
+     * {@link #CACHE_EVICTION_LIMIT}), that region-level eviction is suppressed on purpose by returning a persister of the same entity built without
+     * entity cache access, and {@link CacheEviction} evicts the affected entries (or the region above the limit) instead. Query spaces, natural ID
+     * and collection regions are the same as for the entity's own persister, so Hibernate still invalidates cached queries and evicts those regions
+     */
+    private Queryable getCleanupQueryable(Queryable persister) {
+        return uncachedPersisters.getOrDefault(persister.getEntityName(), persister);
+    }
+
+    /**
+     * @return cache eviction of the operation, or {@code null} if evictions are not targeted or nothing is cached
+     */
+    private CacheEviction createCacheEviction(SharedSessionContractImplementor session, Queryable persister) {
+        return uncachedPersisters.containsKey(persister.getEntityName()) ? new CacheEviction(session, persister, settings.getCacheEvictionLimit()) : null;
+    }
+
+    /**
+     * Keeps evicted cache entries locked until the transaction completes, so that concurrent transactions do not cache stale state
+     */
+    private void releaseOnCompletion(SharedSessionContractImplementor session, CacheEviction cacheEviction) {
+        if (cacheEviction == null) {
+            return;
+        }
+        if (session.isEventSource()) {
+            ((EventSource) session).getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completedSession) -> cacheEviction.release());
+        } else {
+            cacheEviction.release();
+        }
+    }
+
+    private int executeDirectDml(DirectDmlHandler handler, Queryable persister, SharedSessionContractImplementor session, QueryParameters queryParameters) {
+        final long startNanos = executor.phaseStarted(persister, Phase.OPERATION, null, null);
+        int resultCount = -1;
+        final CacheEviction cacheEviction = createCacheEviction(session, persister);
+        try {
+            if (cacheEviction != null) {
+                cacheEviction.evictRegion();
+            }
+            resultCount = executeDirectDmlStatement(handler, persister, session, queryParameters);
+            return resultCount;
+        } finally {
+            releaseOnCompletion(session, cacheEviction);
+            final StagedIdCache stagedIdCache = stagedIdCaches.get(session);
+            if (stagedIdCache != null) {
+                // the updated table changed, so IDs staged from it may no longer match their where clauses
+                stagedIdCache.invalidate(Collections.singleton(handler.getTableName()), null);
+            }
+            executor.phaseCompleted(persister, Phase.OPERATION, null, null, resultCount, startNanos);
+        }
+    }
+
+    private int executeDirectDmlStatement(DirectDmlHandler handler, Queryable persister, SharedSessionContractImplementor session,
+            QueryParameters queryParameters) {
+        final String sql = handler.getSqlStatements()[0];
+        final long startNanos = executor.phaseStarted(persister, Phase.TABLE_STATEMENT, handler.getTableName(), sql);
+        int rowCount = -1;
+        try {
+            rowCount = handler.execute(session, queryParameters);
+            return rowCount;
+        } finally {
+            executor.phaseCompleted(persister, Phase.TABLE_STATEMENT, handler.getTableName(), sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Derives copies of an operation (built for the first table) for every table listed in {@link #TABLE}, with per-table statements in the
+     * configured {@link #DML_FORM}
+     */
+    private List<StagedBulkOperation> createShardOperations(StagedBulkOperation operation) {
+        final Queryable persister = operation.getTargetedPersister();
+        final PersisterSql entitySql = getPersisterSql(persister);
+        if (settings.getTableNames().size() == 1 && settings.getDmlForm() == StrategySettings.DmlForm.IN) {
+            return Collections.singletonList(operation);
+        }
+        final List<StagedBulkOperation> operations = new ArrayList<>();
+        for (int shard = 0; shard < settings.getTableNames().size(); shard++) {
+            final String shardIdSubselect = entitySql.getIdSubselect(shard);
+            final List<BulkStatement> statements = new ArrayList<>();
+            for (BulkStatement statement : operation.getStatements()) {
+                final String sql = dmlRewriter.rewrite(statement.getSql().replace(entitySql.getIdSubselect(0), shardIdSubselect), shardIdSubselect,
+                        statement.getTableName(), settings.getTableNames().get(shard), entitySql.getIdColumn(), getStagedRowsCondition(persister));
+                statements.add(new BulkStatement(statement.getTableName(), sql, statement.getParameterSpecifications()));
+            }
+            operations.add(new StagedBulkOperation(
+                    operation.getDescription(),
+                    operation.getTargetedPersister(),
+                    shard,
+                    operation.getIdSelect(),
+                    toShardInsertSelect(operation.getIdInsertSelect(), shard),
+                    toShardInsertSelect(operation.getChunkIdInsertSelect(), shard),
+                    operation.getIdSelectParameterSpecifications(),
+                    statements,
+                    operation.getRestrictionTableNames(),
+                    operation.isRestrictionPreserved()));
+        }
+        return operations;
+    }
+
+    private String toShardInsertSelect(String idInsertSelect, int shard) {
+        if (idInsertSelect == null) {
+            return null;
+        }
+        // hints may be placed between "insert" and "into"
+        final String prefix = "into " + getTableName();
+        final int start = idInsertSelect.indexOf(prefix);
+        return idInsertSelect.substring(0, start) + "into " + settings.getTableNames().get(shard) + idInsertSelect.substring(start + prefix.length());
+    }
+
+    private int selectShard(SharedSessionContractImplementor session) {
+        if (settings.getTableNames().size() == 1) {
+            return 0;
+        }
+        switch (settings.getShardRouting()) {
+            case THREAD:
+                return Math.floorMod(Long.hashCode(Thread.currentThread().getId()), settings.getTableNames().size());
+            case ROUND_ROBIN:
+                return Math.floorMod(shardCounter.getAndIncrement(), settings.getTableNames().size());
+            default:
+                return Math.floorMod(System.identityHashCode(session), settings.getTableNames().size());
+        }
+    }
+
+    /**
+     * Pairs update statements generated by {@link TableBasedUpdateHandlerImpl} with their tables and assignment parameters
+     */
+    @SuppressWarnings("unchecked")
+    private List<BulkStatement> createUpdateStatements(HqlSqlWalker walker, Queryable persister, String[] updates) {
+        final String[] tableNames = persister.getConstraintOrderedTableNameClosure();
+        final List<AssignmentSpecification> assignmentSpecifications = walker.getAssignmentSpecifications();
+        final List<BulkStatement> statements = new ArrayList<>();
+        for (int i = 0; i < tableNames.length; i++) {
+            if (updates[i] == null) {
+                continue;
+            }
+            final List<ParameterSpecification> parameters = new ArrayList<>();
+            for (AssignmentSpecification assignmentSpecification : assignmentSpecifications) {
+                if (assignmentSpecification.affectsTable(tableNames[i]) && assignmentSpecification.getParameters() != null) {
+                    Collections.addAll(parameters, assignmentSpecification.getParameters());
                 }
             }
+            statements.add(new BulkStatement(tableNames[i], updates[i], parameters));
+        }
+        return statements;
+    }
+
+    private static Set<String> getRestrictionTableNames(HqlSqlWalker walker, Queryable persister) {
+        final Set<String> tableNames = new HashSet<>();
+        for (Object querySpace : walker.getQuerySpaces()) {
+            tableNames.add(querySpace.toString());
+        }
+        Collections.addAll(tableNames, persister.getConstraintOrderedTableNameClosure());
+        return Collections.unmodifiableSet(tableNames);
+    }
+
+    /**
+     * Checks whether an update leaves the set of IDs matched by its where clause unchanged, i.e. none of the columns it assigns is referenced by the
+     * where clause (including its subqueries). Columns are compared as resolved by the walker, by table and column name. Anything that cannot be
+     * resolved to columns, e.g. an SQL fragment or a formula, is assumed to be affected
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isRestrictionPreserved(HqlSqlWalker walker, UpdateStatement updateStatement) {
+        final Map<String, Set<String>> assignedColumns = new HashMap<>();
+        for (AST assignment = updateStatement.getSetClause().getFirstChild(); assignment != null; assignment = assignment.getNextSibling()) {
+            final ColumnReference reference = ColumnReference.resolve(assignment.getFirstChild());
+            if (reference == null) {
+                return false;
+            }
+            assignedColumns.computeIfAbsent(reference.tableName, tableName -> new HashSet<>()).addAll(reference.columnNames);
+        }
+        final List<AssignmentSpecification> assignmentSpecifications = walker.getAssignmentSpecifications();
+        return updateStatement.getWhereClause() == null
+                || isRestrictionPreserved(updateStatement.getWhereClause().getFirstChild(), assignedColumns, assignmentSpecifications);
+    }
+
+    private static boolean isRestrictionPreserved(AST node, Map<String, Set<String>> assignedColumns, List<AssignmentSpecification> assignments) {
+        for (; node != null; node = node.getNextSibling()) {
+            if (node instanceof SqlFragment) {
+                return false;
+            }
+            if (node instanceof FromReferenceNode) {
+                final ColumnReference reference = ColumnReference.resolve(node);
+                if (reference == null) {
+                    return false;
+                }
+                final Set<String> columns = assignedColumns.get(reference.tableName);
+                if (columns != null && !Collections.disjoint(columns, reference.columnNames)
+                        && assignments.stream().anyMatch(assignment -> assignment.affectsTable(reference.tableName))) {
+                    return false;
+                }
+            } else if (!isRestrictionPreserved(node.getFirstChild(), assignedColumns, assignments)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Columns of an entity property referenced by a node of a bulk statement, together with the table they belong to
+     */
+    private static final class ColumnReference {
+        private final String tableName;
+        private final List<String> columnNames;
+
+        private ColumnReference(String tableName, List<String> columnNames) {
+            this.tableName = tableName;
+            this.columnNames = columnNames;
+        }
+
+        /**
+         * @return the referenced columns, or {@code null} if the node cannot be resolved to columns of a single table, e.g. a reference to the entity
+         *         itself, a collection or a formula
+         */
+        static ColumnReference resolve(AST node) {
+            if (!(node instanceof DotNode || node instanceof IdentNode) || ((FromReferenceNode) node).getFromElement() == null) {
+                return null;
+            }
+            final Queryable persister = ((FromReferenceNode) node).getFromElement().getQueryable();
+            // a naked property reference, if not an alias
+            final String propertyPath = node instanceof DotNode ? ((DotNode) node).getPropertyPath() : ((IdentNode) node).getOriginalText();
+            if (persister == null || propertyPath == null) {
+                return null;
+            }
+            try {
+                final String[] columnNames = persister.toColumns(propertyPath);
+                if (Arrays.asList(columnNames).contains(null)) {
+                    return null;
+                }
+                final String tableName = persister.getSubclassTableName(persister.getSubclassPropertyTableNumber(propertyPath));
+                return new ColumnReference(tableName, Arrays.asList(columnNames));
+            } catch (QueryException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Pairs delete statements generated by {@link TableBasedDeleteHandlerImpl} with their tables: many-to-many collection tables come first,
+     * followed by the entity's own tables
+     */
+    private List<BulkStatement> createDeleteStatements(SessionFactoryImplementor factory, Queryable persister, String[] deletes) {
+        final List<String> tableNames = new ArrayList<>();
+        for (Type type : persister.getPropertyTypes()) {
+            if (type.isCollectionType()) {
+                final CollectionPersister collectionPersister = factory.getMetamodel().collectionPersister(((CollectionType) type).getRole());
+                if (collectionPersister.isManyToMany()) {
+                    tableNames.add(((AbstractCollectionPersister) collectionPersister).getTableName());
+                }
+            }
+        }
+        Collections.addAll(tableNames, persister.getConstraintOrderedTableNameClosure());
+
+        final List<BulkStatement> statements = new ArrayList<>();
+        for (int i = 0; i < deletes.length; i++) {
+            statements.add(new BulkStatement(tableNames.get(i), deletes[i], Collections.emptyList()));
+        }
+        return statements;
+    }
+
+    /**
+     * @return the operation composed into a single statement with data-modifying CTEs, or {@code null} if {@link #WRITABLE_CTE} is not used
+     */
+    private WritableCteStatement createWritableCteStatement(StagedBulkOperation operation, Select idSelect) {
+        if (!settings.isWritableCte()) {
+            return null;
+        }
+        final Queryable persister = operation.getTargetedPersister();
+        // see addExtraIdSelectValues
+        final List<String> extraColumnNames = settings.getOperationIdColumn() != null ? Arrays.asList(settings.getDiscriminatorColumn(), settings.getOperationIdColumn())
+                : Collections.singletonList(settings.getDiscriminatorColumn());
+        return WritableCteStatement.compose(idSelect.toStatementString(), persister.getIdentifierColumnNames(), extraColumnNames,
+                getPersisterSql(persister).getIdSubselect(0), operation);
+    }
+
+    /**
+     * @param operations the operation built for each table listed in {@link #TABLE}
+     * @param writableCteStatement the operation as a single statement, or {@code null} if IDs are always staged
+     */
+    private int execute(List<StagedBulkOperation> operations, WritableCteStatement writableCteStatement, SharedSessionContractImplementor session,
+            QueryParameters queryParameters) {
+        final Queryable persister = operations.get(0).getTargetedPersister();
+        final long startNanos = executor.phaseStarted(persister, Phase.OPERATION, null, null);
+        int resultCount = -1;
+        try {
+            resultCount = executeOperation(operations, writableCteStatement, session, queryParameters);
+            return resultCount;
+        } finally {
+            executor.phaseCompleted(persister, Phase.OPERATION, null, null, resultCount, startNanos);
+        }
+    }
+
+    private int executeOperation(List<StagedBulkOperation> operations, WritableCteStatement writableCteStatement, SharedSessionContractImplementor session,
+            QueryParameters queryParameters) {
+        final Iterator<?> ids = suppliedIds.get();
+        suppliedIds.remove();
+        final StagedIdCache stagedIdCache = getStagedIdCache(session);
+        // bulk operations on single-table entities bypass the strategy, so restrictions reading their tables are not cached
+        final List<Object> stagedIdsKey = stagedIdCache != null && ids == null
+                && Collections.disjoint(operations.get(0).getRestrictionTableNames(), singleTableEntityTableNames)
+                ? createStagedIdsKey(operations.get(0), queryParameters)
+                : null;
+        final StagedIdCache.Entry stagedIds = stagedIdsKey != null ? stagedIdCache.get(stagedIdsKey) : null;
+        final StagedBulkOperation operation = operations.get(stagedIds != null ? stagedIds.getShard() : selectShard(session));
+        final CacheEviction cacheEviction = createCacheEviction(session, operation.getTargetedPersister());
+        try {
+            if (stagedIds != null) {
+                log.debugf("Reusing %d IDs staged earlier in the transaction for %s of %s", stagedIds.getCount(), operation.getDescription(),
+                        operation.getTargetedPersister().getEntityName());
+                evictStagedIds(cacheEviction, operation, session, stagedIds.getOperationId(), stagedIds.getCount());
+                executor.executeStatements(operation, session, queryParameters, stagedIds.getOperationId(), stagedIds.getCount());
+                return stagedIds.getCount();
+            }
+            if (ids != null) {
+                return executeWithSuppliedIds(operation, ids, session, queryParameters, cacheEviction);
+            }
+            if (writableCteStatement != null) {
+                if (cacheEviction != null) {
+                    // matching IDs never leave the database
+                    cacheEviction.evictRegion();
+                }
+                return executor.executeWritableCte(operation, writableCteStatement, session, queryParameters);
+            }
+            return executeOperation(operation, session, queryParameters, operation.isRestrictionPreserved() ? stagedIdsKey : null, cacheEviction);
+        } finally {
+            releaseOnCompletion(session, cacheEviction);
+            if (stagedIdCache != null) {
+                // rows of the affected tables changed, so IDs staged from them may no longer match their where clauses
+                stagedIdCache.invalidate(operation.getAffectedTableNames(), operation.isRestrictionPreserved() ? stagedIdsKey : null);
+            }
+        }
+    }
+
+    /**
+     * @param stagedIdsKey key to cache staged IDs under for reuse by later operations, or {@code null} if they are not reused
+     * @param cacheEviction evicts cache entries of affected entities, or {@code null} if Hibernate evicts whole regions
+     */
+    private int executeOperation(StagedBulkOperation operation, SharedSessionContractImplementor session, QueryParameters queryParameters,
+            List<Object> stagedIdsKey, CacheEviction cacheEviction) {
+        final Queryable persister = operation.getTargetedPersister();
+        if (operation.getIdSelect() != null) {
+            final List<Object> ids = executor.selectIds(operation, session, queryParameters);
+            if (ids != null) {
+                if (cacheEviction != null) {
+                    cacheEviction.evict(ids.size(), () -> ids);
+                }
+                return executor.executeWithInlineIds(operation, ids, session, queryParameters);
+            }
+        }
+        // only drawn once IDs are staged, so that operations with inlined IDs do not pay for a sequence round trip
+        final Long operationId = settings.getOperationIdColumn() != null ? generateOperationId(session) : null;
+        if (operationId == null) {
+            rowCleanup.cleanUpEarlierRows(session, persister);
+        }
+        if (operation.getChunkIdInsertSelect() != null) {
+            return executeInChunks(operation, session, queryParameters, operationId, cacheEviction);
+        }
+
+        final int resultCount = executor.stageIds(operation, operation.getIdInsertSelect(), null, session, queryParameters, operationId);
+        if (resultCount == 0) {
+            // nothing matched, so there is nothing to update/delete and no rows to clean up
+            return 0;
+        }
+        evictStagedIds(cacheEviction, operation, session, operationId, resultCount);
+        if (stagedIdsKey != null) {
+            if (settings.isCleanRows()) {
+                // later operations of the transaction may reuse the rows, so keep them until it completes
+                rowCleanup.deferCleanUp((SessionImplementor) session, persister, operation.getShard(), operationId);
+            }
+            executor.executeStatements(operation, session, queryParameters, operationId, resultCount);
+            getStagedIdCache(session).put(stagedIdsKey,
+                    new StagedIdCache.Entry(operationId, operation.getShard(), resultCount, operation.getRestrictionTableNames()));
+            return resultCount;
+        }
+        try {
+            if (executor.canBatchStatements(operation, operationId)) {
+                executor.executeBatch(operation, session, resultCount);
+            } else {
+                executor.executeStatements(operation, session, queryParameters, operationId, resultCount);
+            }
+        } finally {
+            if (settings.isCleanRows()) {
+                rowCleanup.scheduleCleanUp(session, persister, operation.getShard(), operationId);
+            }
+        }
+        return resultCount;
+    }
+
+    /**
+     * Executes a bulk update/delete without a where clause for the entities with the given IDs only, see {@link BulkIdOperations}
+     *
+     * @return number of affected entities
+     */
+    int executeUpdate(Query<?> query, Iterator<?> ids) {
+        suppliedIds.set(ids);
+        try {
+            final int resultCount = query.executeUpdate();
+            if (suppliedIds.get() != null) {
+                throw new HibernateException("Bulk operation [" + query.getQueryString() + "] was not executed through the ID table");
+            }
+            return resultCount;
+        } finally {
+            suppliedIds.remove();
+        }
+    }
+
+    private int executeWithSuppliedIds(StagedBulkOperation operation, Iterator<?> ids, SharedSessionContractImplementor session,
+            QueryParameters queryParameters, CacheEviction cacheEviction) {
+        final Queryable persister = operation.getTargetedPersister();
+        final Long operationId = settings.getOperationIdColumn() != null ? generateOperationId(session) : null;
+        if (operationId == null) {
+            rowCleanup.cleanUpEarlierRows(session, persister);
+        }
+        final int stagedCount = executor.stageSuppliedIds(operation, ids, session, operationId);
+        if (stagedCount == 0) {
+            return 0;
+        }
+        try {
+            evictStagedIds(cacheEviction, operation, session, operationId, stagedCount);
+            return executor.executeStatements(operation, session, queryParameters, operationId, stagedCount);
+        } finally {
+            if (settings.isCleanRows()) {
+                rowCleanup.scheduleCleanUp(session, persister, operation.getShard(), operationId);
+            }
+        }
+    }
+
+    /**
+     * @return ID sets staged in the session's current transaction, or {@code null} if they are not reused
+     */
+    private StagedIdCache getStagedIdCache(SharedSessionContractImplementor session) {
+        if (!settings.isReuseStagedIds() || !(session instanceof SessionImplementor) || !session.isTransactionInProgress()) {
+            return null;
+        }
+        StagedIdCache stagedIdCache = stagedIdCaches.get(session);
+        if (stagedIdCache == null) {
+            stagedIdCache = new StagedIdCache();
+            stagedIdCaches.put(session, stagedIdCache);
+            ((SessionImplementor) session).getActionQueue()
+                    .registerProcess((AfterTransactionCompletionProcess) (success, completedSession) -> stagedIdCaches.remove(completedSession));
+        }
+        return stagedIdCache;
+    }
+
+    /**
+     * @return the ID insert-select followed by the values of its parameters, or {@code null} if some values are not known (e.g. of filter parameters)
+     */
+    private static List<Object> createStagedIdsKey(StagedBulkOperation operation, QueryParameters queryParameters) {
+        final List<Object> key = new ArrayList<>();
+        key.add(operation.getIdInsertSelect());
+        for (ParameterSpecification parameterSpecification : operation.getIdSelectParameterSpecifications()) {
+            final String name;
+            if (parameterSpecification instanceof NamedParameterSpecification) {
+                name = ((NamedParameterSpecification) parameterSpecification).getName();
+            } else if (parameterSpecification instanceof PositionalParameterSpecification) {
+                name = Integer.toString(((PositionalParameterSpecification) parameterSpecification).getLabel());
+            } else {
+                return null;
+            }
+            final TypedValue value = queryParameters.getNamedParameters().get(name);
+            if (value == null) {
+                return null;
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    private void invalidateStagedIds(EventSource session, Serializable[] querySpaces) {
+        final StagedIdCache stagedIdCache = stagedIdCaches.get(session);
+        if (stagedIdCache != null) {
+            final List<String> tableNames = new ArrayList<>();
+            for (Serializable querySpace : querySpaces) {
+                tableNames.add(querySpace.toString());
+            }
+            stagedIdCache.invalidate(tableNames, null);
+        }
+    }
+
+    private void evictStagedIds(CacheEviction cacheEviction, StagedBulkOperation operation, SharedSessionContractImplementor session, Long operationId,
+            int stagedCount) {
+        if (cacheEviction != null) {
+            cacheEviction.evict(stagedCount, operation.getTargetedPersister().getIdentifierColumnNames().length == 1
+                    ? () -> executor.selectStagedIds(operation, session, operationId)
+                    : null);
+        }
+    }
+
+    private boolean canInlineIds(Queryable persister) {
+        return settings.getInlineIdThreshold() > 0 && persister.getIdentifierColumnNames().length == 1 && settings.getDmlForm() == StrategySettings.DmlForm.IN;
+    }
+
+    /**
+     * Repeatedly stages, deletes and cleans up a chunk of matching IDs, until a chunk comes up short
+     */
+    private int executeInChunks(StagedBulkOperation operation, SharedSessionContractImplementor session, QueryParameters queryParameters, Long operationId,
+            CacheEviction cacheEviction) {
+        final List<BulkStatement> statements = operation.getStatements();
+        int resultCount = 0;
+        int stagedCount;
+        do {
+            stagedCount = executor.stageIds(operation, operation.getChunkIdInsertSelect(), createChunkSelection(), session, queryParameters, operationId);
+            if (stagedCount == 0) {
+                break;
+            }
+            int rootTableCount;
+            try {
+                evictStagedIds(cacheEviction, operation, session, operationId, stagedCount);
+                rootTableCount = 0;
+                for (BulkStatement statement : statements) {
+                    rootTableCount = executor.executeStatement(operation, statement, session, queryParameters, operationId, stagedCount);
+                }
+            } finally {
+                // rows of the next chunk must not be mixed with this one, so clean up regardless of CLEAN_ROWS
+                rowCleanup.cleanUpRows(session, operation.getTargetedPersister(), operation.getShard(), operationId);
+            }
+            resultCount += stagedCount;
+            if (rootTableCount == 0) {
+                // nothing was deleted from the root table, so the next chunk would stage the same IDs again
+                break;
+            }
+        } while (stagedCount >= settings.getChunkSize());
+        return resultCount;
+    }
+
+    private RowSelection createChunkSelection() {
+        final RowSelection selection = new RowSelection();
+        selection.setMaxRows(settings.getChunkSize());
+        return selection;
+    }
+
+    private Select limitToChunk(SessionFactoryImplementor factory, Select idSelect) {
+        final Dialect dialect = factory.getJdbcServices().getJdbcEnvironment().getDialect();
+        final String limitedSql = dialect.getLimitHandler().processSql(idSelect.toStatementString(), createChunkSelection());
+        return new Select(dialect) {
+            @Override
+            public String toStatementString() {
+                return limitedSql;
+            }
         };
     }
 
-    private void cleanUpRows(SharedSessionContractImplementor session, Queryable persister) {
-        final String sql = "delete from " + fullyQualifiedTableName + " where " + discriminatorColumn + "=?";
+    /**
+     * Generates a token identifying rows staged by a single bulk operation. Only used when {@link #OPERATION_ID_COLUMN} is set.
+     */
+    protected long generateOperationId(SharedSessionContractImplementor session) {
+        if (settings.getOperationIdSequence() == null) {
+            return operationIdCounter.incrementAndGet();
+        }
+        final String sql = session.getJdbcServices().getDialect().getSequenceNextValString(settings.getOperationIdSequence());
         PreparedStatement ps = null;
         try {
             ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
-            ps.setString(1, generateDiscriminatorValue(persister));
-            StringType.INSTANCE.set(ps, generateDiscriminatorValue(persister), 1, session);
-            session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+            ResultSet rs = session.getJdbcCoordinator().getResultSetReturn().extract(ps);
+            rs.next();
+            return rs.getLong(1);
         } catch (SQLException e) {
-            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Unable to clean up id table [" + fullyQualifiedTableName + "]", sql);
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Unable to generate operation id from sequence [" + settings.getOperationIdSequence() + "]", sql);
         } finally {
             if (ps != null) {
                 session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
             }
         }
     }
@@ -151,17 +1109,119 @@ public class SingleGlobalTemporaryTableBulkIdStrategy implements MultiTableBulkI
         return persister.getEntityName();
     }
 
+    /**
+     * Generates a compact discriminator code, used instead of {@link #generateDiscriminatorValue(Queryable)} when {@link #DISCRIMINATOR_TYPE} is
+     * {@code numeric}
+     */
+    protected int generateDiscriminatorCode(Queryable persister) {
+        final Integer code = settings.getDiscriminatorCodes().get(persister.getEntityName());
+        return code != null ? code : generateDiscriminatorValue(persister).hashCode() & Integer.MAX_VALUE;
+    }
+
+    private Object getDiscriminator(Queryable persister) {
+        return settings.isNumericDiscriminator() ? (Object) generateDiscriminatorCode(persister) : generateDiscriminatorValue(persister);
+    }
+
     protected String getTempTableIdSubselect(IdTableInfo idTableInfo, Queryable persister) {
-        return "select " + idColumn
+        return "select " + settings.getIdColumn(persister)
                 + " from " + idTableInfo.getQualifiedIdTableName()
-                + " where " + discriminatorColumn + "='" + generateDiscriminatorValue(persister) + "'";
+                + " where " + settings.getDiscriminatorColumn() + (settings.isBindDiscriminator() ? "=?" : "=" + settings.toDiscriminatorLiteral(getDiscriminator(persister)))
+                + (settings.getOperationIdColumn() != null ? " and " + settings.getOperationIdColumn() + "=?" : "");
+    }
+
+    /**
+     * @return condition selecting the staged rows of an entity, the same as in {@link #getTempTableIdSubselect}, qualified with an alias of the ID table
+     */
+    private String getStagedRowsCondition(Queryable persister) {
+        final String alias = StagedRowsDmlRewriter.ID_TABLE_ALIAS + ".";
+        return alias + settings.getDiscriminatorColumn() + (settings.isBindDiscriminator() ? "=?" : "=" + settings.toDiscriminatorLiteral(getDiscriminator(persister)))
+                + (settings.getOperationIdColumn() != null ? " and " + alias + settings.getOperationIdColumn() + "=?" : "");
     }
 
     protected void addExtraIdSelectValues(final Queryable targetedPersister, SelectValues selectClause) {
-        selectClause.addColumn(null, '\'' + generateDiscriminatorValue(targetedPersister) + '\'', discriminatorColumn);
+        if (settings.isBindDiscriminator()) {
+            if (settings.isNumericDiscriminator()) {
+                selectClause.addParameter(Types.INTEGER, 0);
+            } else {
+                selectClause.addParameter(Types.VARCHAR, 255);
+            }
+        } else {
+            selectClause.addColumn(null, getPersisterSql(targetedPersister).getDiscriminatorLiteral(), settings.getDiscriminatorColumn());
+        }
+        if (settings.getOperationIdColumn() != null) {
+            selectClause.addParameter(Types.BIGINT, 0);
+        }
+    }
+
+    private String createIdInsertSelect(SessionFactoryImplementor factory, Queryable targetedPersister, Select idSelect) {
+        final Dialect dialect = factory.getJdbcServices().getJdbcEnvironment().getDialect();
+        final InsertSelect insert = new InsertSelect(dialect)
+                .setTableName(getTableName())
+                .setSelect(idSelect);
+        if (settings.getOperationIdColumn() != null || settings.getNumericIdColumn() != null || settings.getBinaryIdColumn() != null) {
+            // column order of the pre-created table is unknown, so list the columns explicitly
+            insert.addColumn(getPersisterSql(targetedPersister).getIdColumn())
+                    .addColumn(settings.getDiscriminatorColumn());
+            if (settings.getOperationIdColumn() != null) {
+                insert.addColumn(settings.getOperationIdColumn());
+            }
+        }
+        if (factory.getSessionFactoryOptions().isCommentsEnabled()) {
+            insert.setComment("insert-select for " + targetedPersister.getEntityName() + " ids");
+        }
+        return settings.withHints(insert.toStatementString(), settings.getStagingHints());
     }
 
     private String getTableName() {
-        return fullyQualifiedTableName;
+        return settings.getTableNames().get(0);
+    }
+
+    /**
+     * Drops staged ID sets of entities changed by flushing the session, see {@link #REUSE_STAGED_IDS}
+     */
+    private class StagedIdInvalidator implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+            PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            invalidateStagedIds(event.getSession(), event.getPersister().getQuerySpaces());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            invalidateStagedIds(event.getSession(), event.getPersister().getQuerySpaces());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            invalidateStagedIds(event.getSession(), event.getPersister().getQuerySpaces());
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            invalidateCollectionStagedIds(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            invalidateCollectionStagedIds(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            invalidateCollectionStagedIds(event);
+        }
+
+        private void invalidateCollectionStagedIds(AbstractCollectionEvent event) {
+            final String role = event.getCollection().getRole();
+            if (role != null) {
+                invalidateStagedIds(event.getSession(), event.getSession().getFactory().getMetamodel().collectionPersister(role).getCollectionSpaces());
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
     }
 }
@@ -0,0 +1,113 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.param.ParameterSpecification;
+import org.hibernate.persister.entity.Queryable;
+
+/**
+ * Everything needed to execute a bulk update/delete of an entity through the ID table: the insert-select staging matching IDs and the statements
+ * then executed against each affected table. Built once per handler, shared by all of its executions.
+ */
+final class StagedBulkOperation {
+    private final String description;
+    private final Queryable targetedPersister;
+    private final int shard;
+    private final String idSelect;
+    private final String idInsertSelect;
+    private final String chunkIdInsertSelect;
+    private final List<ParameterSpecification> idSelectParameterSpecifications;
+    private final List<BulkStatement> statements;
+    private final Set<String> restrictionTableNames;
+    private final boolean restrictionPreserved;
+
+    StagedBulkOperation(String description, Queryable targetedPersister, int shard, String idSelect, String idInsertSelect, String chunkIdInsertSelect,
+            List<ParameterSpecification> idSelectParameterSpecifications, List<BulkStatement> statements, Set<String> restrictionTableNames,
+            boolean restrictionPreserved) {
+        this.description = description;
+        this.targetedPersister = targetedPersister;
+        this.shard = shard;
+        this.idSelect = idSelect;
+        this.idInsertSelect = idInsertSelect;
+        this.chunkIdInsertSelect = chunkIdInsertSelect;
+        this.idSelectParameterSpecifications = idSelectParameterSpecifications;
+        this.statements = statements;
+        this.restrictionTableNames = restrictionTableNames;
+        this.restrictionPreserved = restrictionPreserved;
+    }
+
+    /**
+     * @return type of operation ({@code bulk update} or {@code bulk delete}) for use in error messages
+     */
+    String getDescription() {
+        return description;
+    }
+
+    Queryable getTargetedPersister() {
+        return targetedPersister;
+    }
+
+    /**
+     * @return index of the ID table this operation stages IDs in, as listed in {@link SingleGlobalTemporaryTableBulkIdStrategy#TABLE}
+     */
+    int getShard() {
+        return shard;
+    }
+
+    /**
+     * @return select fetching matching IDs into the JVM, or {@code null} if IDs of this operation are never inlined
+     */
+    String getIdSelect() {
+        return idSelect;
+    }
+
+    String getIdInsertSelect() {
+        return idInsertSelect;
+    }
+
+    /**
+     * @return insert-select staging at most one chunk of IDs, or {@code null} if the operation is not executed in chunks
+     */
+    String getChunkIdInsertSelect() {
+        return chunkIdInsertSelect;
+    }
+
+    /**
+     * @return parameters of the user-supplied where clause, bound after the ones identifying staged rows (also by the ID select)
+     */
+    List<ParameterSpecification> getIdSelectParameterSpecifications() {
+        return idSelectParameterSpecifications;
+    }
+
+    List<BulkStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return tables changed by the per-table statements
+     */
+    List<String> getAffectedTableNames() {
+        final List<String> tableNames = new ArrayList<>();
+        for (BulkStatement statement : statements) {
+            tableNames.add(statement.getTableName());
+        }
+        return tableNames;
+    }
+
+    /**
+     * @return tables read by the ID select, i.e. of the targeted entity and of any subqueries in its where clause
+     */
+    Set<String> getRestrictionTableNames() {
+        return restrictionTableNames;
+    }
+
+    /**
+     * @return whether the IDs matched by the where clause are still the same after the operation, i.e. it is an update not assigning any of the
+     * columns the where clause refers to
+     */
+    boolean isRestrictionPreserved() {
+        return restrictionPreserved;
+    }
+}
@@ -0,0 +1,75 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ID sets staged by bulk operations of a single transaction that are still valid, so that operations with the same restriction can reuse them
+ * instead of staging IDs again. See {@link SingleGlobalTemporaryTableBulkIdStrategy#REUSE_STAGED_IDS}.
+ */
+final class StagedIdCache {
+    private final Map<List<Object>, Entry> entries = new HashMap<>();
+
+    /**
+     * @param key target entity, ID insert-select and values of its parameters
+     */
+    Entry get(List<Object> key) {
+        return entries.get(key);
+    }
+
+    void put(List<Object> key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * Drops ID sets of entities stored in any of the given tables, as their rows may no longer match the restriction they were staged for
+     *
+     * @param retainedKey key of an entry to keep regardless, or {@code null}
+     */
+    void invalidate(Collection<String> tableNames, List<Object> retainedKey) {
+        entries.entrySet().removeIf(entry -> !entry.getKey().equals(retainedKey) && !Collections.disjoint(entry.getValue().getTableNames(), tableNames));
+    }
+
+    static final class Entry {
+        private final long operationId;
+        private final int shard;
+        private final int count;
+        private final Set<String> tableNames;
+
+        Entry(long operationId, int shard, int count, Set<String> tableNames) {
+            this.operationId = operationId;
+            this.shard = shard;
+            this.count = count;
+            this.tableNames = tableNames;
+        }
+
+        /**
+         * @return token the IDs were staged with
+         */
+        long getOperationId() {
+            return operationId;
+        }
+
+        int getShard() {
+            return shard;
+        }
+
+        /**
+         * @return number of staged IDs
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * @return tables of the entity, changes to which invalidate the entry
+         */
+        Set<String> getTableNames() {
+            return tableNames;
+        }
+    }
+}
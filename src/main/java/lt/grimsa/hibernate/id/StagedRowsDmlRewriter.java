@@ -0,0 +1,80 @@
+package lt.grimsa.hibernate.id;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.dialect.SQLServerDialect;
+
+import lt.grimsa.hibernate.id.StrategySettings.DmlForm;
+
+/**
+ * Rewrites per-table statements restricted by {@code where (id) IN (select ID from <ID table> where ...)} into another form, as configured by
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#DML_FORM}:
+ * <ul>
+ * <li>{@code exists}: {@code where exists (select 1 from <ID table> ht_ where ... and ht_.ID=T.id)}</li>
+ * <li>{@code join}: the dialect's join DML, i.e. {@code delete T from T join ...}/{@code update T join ... set} on MySQL/MariaDB,
+ * {@code delete ... using}/{@code update ... from} on PostgreSQL and {@code delete T from T join ...}/{@code update T set ... from T join ...} on SQL
+ * Server. Other dialects use {@code exists}</li>
+ * </ul>
+ * The conditions on staged rows keep their position after the statement's own parameters, so parameters are bound in the same order as for the
+ * {@code IN} form. Statements of entities with composite keys are left unchanged.
+ */
+final class StagedRowsDmlRewriter {
+    static final String ID_TABLE_ALIAS = "ht_";
+
+    private final DmlForm form;
+    private final Dialect dialect;
+
+    StagedRowsDmlRewriter(DmlForm form, Dialect dialect) {
+        this.form = form;
+        this.dialect = dialect;
+    }
+
+    /**
+     * @param sql statement generated by Hibernate, ending with the {@code IN (idSubselect)} restriction
+     * @param tableName table updated/deleted by the statement
+     * @param idTableName ID table the subselect reads from
+     * @param idColumn column of the ID table holding the entity's IDs
+     * @param stagedRowsCondition condition selecting the operation's staged rows, qualified with {@link #ID_TABLE_ALIAS}
+     * @return rewritten statement, or the original one if it cannot be rewritten
+     */
+    String rewrite(String sql, String idSubselect, String tableName, String idTableName, String idColumn, String stagedRowsCondition) {
+        final String suffix = ") IN (" + idSubselect + ")";
+        if (form == DmlForm.IN || !sql.endsWith(suffix)) {
+            return sql;
+        }
+        final int whereStart = sql.lastIndexOf(" where (", sql.length() - suffix.length());
+        if (whereStart < 0) {
+            return sql;
+        }
+        final String keyColumn = sql.substring(whereStart + " where (".length(), sql.length() - suffix.length());
+        if (keyColumn.contains(",")) {
+            return sql;
+        }
+        final String head = sql.substring(0, whereStart);
+        final String idTable = idTableName + " " + ID_TABLE_ALIAS;
+        final String joinCondition = ID_TABLE_ALIAS + "." + idColumn + "=" + tableName + "." + keyColumn;
+        final String delete = "delete from " + tableName;
+        final String update = "update " + tableName + " set ";
+        final boolean isDelete = head.contains(delete) && !head.contains(update);
+        if (form == DmlForm.JOIN) {
+            if (dialect instanceof MySQLDialect) {
+                return isDelete
+                        ? head.replace(delete, "delete " + tableName + " from " + tableName + " join " + idTable + " on " + joinCondition)
+                                + " where " + stagedRowsCondition
+                        : head.replace(update, "update " + tableName + " join " + idTable + " on " + joinCondition + " set ")
+                                + " where " + stagedRowsCondition;
+            }
+            if (dialect instanceof PostgreSQL81Dialect) {
+                return head + (isDelete ? " using " : " from ") + idTable + " where " + joinCondition + " and " + stagedRowsCondition;
+            }
+            if (dialect instanceof SQLServerDialect) {
+                return isDelete
+                        ? head.replace(delete, "delete " + tableName + " from " + tableName + " join " + idTable + " on " + joinCondition)
+                                + " where " + stagedRowsCondition
+                        : head + " from " + tableName + " join " + idTable + " on " + joinCondition + " where " + stagedRowsCondition;
+            }
+        }
+        return head + " where exists (select 1 from " + idTable + " where " + stagedRowsCondition + " and " + joinCondition + ")";
+    }
+}
@@ -0,0 +1,417 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hibernate.dialect.pagination.LimitHandler;
+import org.hibernate.engine.spi.QueryParameters;
+import org.hibernate.engine.spi.RowSelection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.param.ParameterSpecification;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.type.LongType;
+import org.jboss.logging.Logger;
+
+import lt.grimsa.hibernate.id.BulkOperationListener.Phase;
+
+/**
+ * Executes the statements of staged bulk operations through the session's JDBC coordinator: staging IDs, per-table statements (one by one, batched,
+ * with inlined IDs or composed into a writable CTE) and reading staged IDs back. Each statement is reported to the
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#LISTENER}, if any.
+ */
+final class StatementExecutor {
+    // logged under the strategy's category, where users look for its messages
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+    private static final String ROWS_PLACEHOLDER = "{rows}";
+    private static final int DEFAULT_SUPPLIED_ID_BATCH_SIZE = 1000;
+
+    private final StrategySettings settings;
+    private final BulkOperationListener listener;
+    private final Function<Queryable, PersisterSql> persisterSql;
+    private final Function<Queryable, String> reportedEntityName;
+
+    /**
+     * @param persisterSql looks up precomputed SQL of an entity
+     * @param reportedEntityName name of an entity reported to the listener
+     */
+    StatementExecutor(StrategySettings settings, Function<Queryable, PersisterSql> persisterSql, Function<Queryable, String> reportedEntityName) {
+        this.settings = settings;
+        this.listener = settings.getListener();
+        this.persisterSql = persisterSql;
+        this.reportedEntityName = reportedEntityName;
+    }
+
+    /**
+     * Notifies the {@link SingleGlobalTemporaryTableBulkIdStrategy#LISTENER}, if any, that a phase of a bulk operation has started
+     *
+     * @return start time to be passed to {@link #phaseCompleted}, or {@code 0} if there is no listener
+     */
+    long phaseStarted(Queryable persister, Phase phase, String tableName, String sql) {
+        if (listener == null) {
+            return 0;
+        }
+        listener.phaseStarted(persister != null ? reportedEntityName.apply(persister) : null, phase, tableName, sql);
+        return System.nanoTime();
+    }
+
+    void phaseCompleted(Queryable persister, Phase phase, String tableName, String sql, int rowCount, long startNanos) {
+        if (listener != null) {
+            listener.phaseCompleted(persister != null ? reportedEntityName.apply(persister) : null, phase, tableName, sql, rowCount, System.nanoTime() - startNanos);
+        }
+    }
+
+    int stageIds(StagedBulkOperation operation, String sql, RowSelection selection, SharedSessionContractImplementor session, QueryParameters queryParameters,
+            Long operationId) {
+        final LimitHandler limitHandler = session.getJdbcServices().getDialect().getLimitHandler();
+        final long startNanos = phaseStarted(operation.getTargetedPersister(), Phase.STAGING, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            int position = 1;
+            if (selection != null) {
+                position += limitHandler.bindLimitParametersAtStartOfQuery(selection, ps, position);
+            }
+            position += bindStagingParameters(ps, session, operation.getTargetedPersister(), operationId, position);
+            for (ParameterSpecification parameterSpecification : operation.getIdSelectParameterSpecifications()) {
+                position += parameterSpecification.bind(ps, queryParameters, session, position);
+            }
+            if (selection != null) {
+                limitHandler.bindLimitParametersAtEndOfQuery(selection, ps, position);
+            }
+            rowCount = session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+            return rowCount;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not insert/select ids for " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(operation.getTargetedPersister(), Phase.STAGING, null, sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Inserts the given IDs into the ID table with batched inserts, consuming the iterator as it goes
+     *
+     * @return number of staged IDs
+     */
+    int stageSuppliedIds(StagedBulkOperation operation, Iterator<?> ids, SharedSessionContractImplementor session, Long operationId) {
+        final Queryable persister = operation.getTargetedPersister();
+        final PersisterSql entitySql = persisterSql.apply(persister);
+        final String sql = settings.withHints("insert into " + settings.getTableNames().get(operation.getShard()) + " (" + entitySql.getIdColumn() + ", " + settings.getDiscriminatorColumn()
+                + (settings.getOperationIdColumn() != null ? ", " + settings.getOperationIdColumn() : "") + ") values (?, " + (settings.isBindDiscriminator() ? "?" : entitySql.getDiscriminatorLiteral())
+                + (settings.getOperationIdColumn() != null ? ", ?" : "") + ")", settings.getStagingHints());
+        final int jdbcBatchSize = session.getFactory().getSessionFactoryOptions().getJdbcBatchSize();
+        final int batchSize = jdbcBatchSize > 1 ? jdbcBatchSize : DEFAULT_SUPPLIED_ID_BATCH_SIZE;
+        final long startNanos = phaseStarted(persister, Phase.STAGING, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            int stagedCount = 0;
+            int batchedCount = 0;
+            while (ids.hasNext()) {
+                persister.getIdentifierType().nullSafeSet(ps, ids.next(), 1, session);
+                bindStagingParameters(ps, session, persister, operationId, 2);
+                ps.addBatch();
+                stagedCount++;
+                if (++batchedCount == batchSize) {
+                    ps.executeBatch();
+                    batchedCount = 0;
+                }
+            }
+            if (batchedCount > 0) {
+                ps.executeBatch();
+            }
+            rowCount = stagedCount;
+            log.debugf("Staged %d supplied IDs for %s of %s", stagedCount, operation.getDescription(), persister.getEntityName());
+            return stagedCount;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not insert supplied ids for " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(persister, Phase.STAGING, null, sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Fetches matching IDs into memory
+     *
+     * @return matching IDs, or {@code null} if there are more than {@link SingleGlobalTemporaryTableBulkIdStrategy#INLINE_ID_THRESHOLD} of them
+     */
+    List<Object> selectIds(StagedBulkOperation operation, SharedSessionContractImplementor session, QueryParameters queryParameters) {
+        final Queryable persister = operation.getTargetedPersister();
+        final String sql = operation.getIdSelect();
+        final long startNanos = phaseStarted(persister, Phase.STAGING, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            ps.setMaxRows(settings.getInlineIdThreshold() + 1);
+            int position = 1;
+            // the operation id is only selected, never stored, so any value will do
+            position += bindStagingParameters(ps, session, persister, settings.getOperationIdColumn() != null ? 0L : null, position);
+            for (ParameterSpecification parameterSpecification : operation.getIdSelectParameterSpecifications()) {
+                position += parameterSpecification.bind(ps, queryParameters, session, position);
+            }
+            final ResultSet rs = session.getJdbcCoordinator().getResultSetReturn().extract(ps);
+            final List<Object> ids = new ArrayList<>();
+            while (rs.next()) {
+                if (ids.size() == settings.getInlineIdThreshold()) {
+                    rowCount = settings.getInlineIdThreshold() + 1;
+                    log.debugf("More than %d IDs matched by %s of %s, staging them in the ID table", settings.getInlineIdThreshold(), operation.getDescription(),
+                            persister.getEntityName());
+                    return null;
+                }
+                ids.add(persister.getIdentifierType().nullSafeGet(rs, persister.getIdentifierColumnNames(), session, null));
+            }
+            rowCount = ids.size();
+            log.debugf("%d IDs matched by %s of %s, inlining them into statements", ids.size(), operation.getDescription(), persister.getEntityName());
+            return ids;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not select ids for " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(persister, Phase.STAGING, null, sql, rowCount, startNanos);
+        }
+    }
+
+    int executeWithInlineIds(StagedBulkOperation operation, List<Object> ids, SharedSessionContractImplementor session, QueryParameters queryParameters) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        final Queryable persister = operation.getTargetedPersister();
+        final int paddedSize = Math.max(Math.min(Integer.highestOneBit(ids.size() - 1) << 1, settings.getInlineIdThreshold()), ids.size());
+        final String idSubselect = persisterSql.apply(persister).getIdSubselect(operation.getShard());
+        final String idList = String.join(",", Collections.nCopies(paddedSize, "?"));
+        for (BulkStatement statement : operation.getStatements()) {
+            final String sql = statement.getSql().replace(idSubselect, idList);
+            final long startNanos = phaseStarted(persister, Phase.TABLE_STATEMENT, statement.getTableName(), sql);
+            int rowCount = -1;
+            PreparedStatement ps = null;
+            try {
+                ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+                int position = 1;
+                for (ParameterSpecification parameterSpecification : statement.getParameterSpecifications()) {
+                    position += parameterSpecification.bind(ps, queryParameters, session, position);
+                }
+                for (int i = 0; i < paddedSize; i++) {
+                    // padding repeats the last ID, which does not change the outcome
+                    persister.getIdentifierType().nullSafeSet(ps, ids.get(Math.min(i, ids.size() - 1)), position++, session);
+                }
+                rowCount = session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+            } catch (SQLException e) {
+                throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "error performing " + operation.getDescription(), sql);
+            } finally {
+                if (ps != null) {
+                    session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                    session.getJdbcCoordinator().afterStatementExecution();
+                }
+                phaseCompleted(persister, Phase.TABLE_STATEMENT, statement.getTableName(), sql, rowCount, startNanos);
+            }
+        }
+        return ids.size();
+    }
+
+    /**
+     * @return the largest number of rows affected in a single table, i.e. the number of affected entities
+     */
+    int executeStatements(StagedBulkOperation operation, SharedSessionContractImplementor session, QueryParameters queryParameters,
+            Long operationId, int stagedCount) {
+        int resultCount = 0;
+        for (BulkStatement statement : operation.getStatements()) {
+            resultCount = Math.max(resultCount, executeStatement(operation, statement, session, queryParameters, operationId, stagedCount));
+        }
+        return resultCount;
+    }
+
+    int executeStatement(StagedBulkOperation operation, BulkStatement statement, SharedSessionContractImplementor session, QueryParameters queryParameters,
+            Long operationId, int stagedCount) {
+        final String sql = withRowsEstimate(statement.getSql(), persisterSql.apply(operation.getTargetedPersister()).getIdSubselect(operation.getShard()),
+                stagedCount);
+        final long startNanos = phaseStarted(operation.getTargetedPersister(), Phase.TABLE_STATEMENT, statement.getTableName(), sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            int position = 1;
+            for (ParameterSpecification parameterSpecification : statement.getParameterSpecifications()) {
+                position += parameterSpecification.bind(ps, queryParameters, session, position);
+            }
+            bindStagingParameters(ps, session, operation.getTargetedPersister(), operationId, position);
+            rowCount = session.getJdbcCoordinator().getResultSetReturn().executeUpdate(ps);
+            return rowCount;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "error performing " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(operation.getTargetedPersister(), Phase.TABLE_STATEMENT, statement.getTableName(), sql, rowCount, startNanos);
+        }
+    }
+
+    boolean canBatchStatements(StagedBulkOperation operation, Long operationId) {
+        if (!settings.isBatchStatements() || settings.isBindDiscriminator() || operationId != null) {
+            return false;
+        }
+        for (BulkStatement statement : operation.getStatements()) {
+            if (!statement.getParameterSpecifications().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes all per-table statements as a single JDBC batch. Only used for statements without parameters
+     */
+    void executeBatch(StagedBulkOperation operation, SharedSessionContractImplementor session, int stagedCount) {
+        final Queryable persister = operation.getTargetedPersister();
+        final List<String> statements = new ArrayList<>();
+        for (BulkStatement statement : operation.getStatements()) {
+            statements.add(withRowsEstimate(statement.getSql(), persisterSql.apply(persister).getIdSubselect(operation.getShard()), stagedCount));
+        }
+        // joined only for reporting, so skipped unless there is a listener
+        final String sql = listener != null ? String.join(";\n", statements) : null;
+        final long startNanos = phaseStarted(persister, Phase.TABLE_STATEMENT, null, sql);
+        int rowCount = -1;
+        Statement batch = null;
+        try {
+            batch = session.getJdbcCoordinator().getStatementPreparer().createStatement();
+            for (String statement : statements) {
+                session.getJdbcServices().getSqlStatementLogger().logStatement(statement);
+                batch.addBatch(statement);
+            }
+            final int[] counts = batch.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                log.debugf("%s of %s: %s affected %d rows", operation.getDescription(), persister.getEntityName(), statements.get(i), counts[i]);
+            }
+            // as in executeStatements, the largest count of a single table is the number of affected entities, unless the driver does not report it
+            int affectedCount = Statement.SUCCESS_NO_INFO;
+            for (int count : counts) {
+                affectedCount = Math.max(affectedCount, count);
+            }
+            rowCount = affectedCount >= 0 ? affectedCount : stagedCount;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "error performing " + operation.getDescription(), String.join(";\n", statements));
+        } finally {
+            if (batch != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(batch);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(persister, Phase.TABLE_STATEMENT, null, sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Executes the whole operation as a single statement, reported to the listener as one {@link Phase#TABLE_STATEMENT} without a table name
+     *
+     * @return number of affected entities
+     */
+    int executeWritableCte(StagedBulkOperation operation, WritableCteStatement statement, SharedSessionContractImplementor session,
+            QueryParameters queryParameters) {
+        final Queryable persister = operation.getTargetedPersister();
+        final String sql = statement.getSql();
+        final long startNanos = phaseStarted(persister, Phase.TABLE_STATEMENT, null, sql);
+        int rowCount = -1;
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            int position = 1;
+            // the operation id is only selected by the ID select, never stored, so any value will do
+            position += bindStagingParameters(ps, session, persister, settings.getOperationIdColumn() != null ? 0L : null, position);
+            for (ParameterSpecification parameterSpecification : statement.getParameterSpecifications()) {
+                position += parameterSpecification.bind(ps, queryParameters, session, position);
+            }
+            final ResultSet rs = session.getJdbcCoordinator().getResultSetReturn().extract(ps);
+            rs.next();
+            rowCount = rs.getInt(1);
+            return rowCount;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "error performing " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+            phaseCompleted(persister, Phase.TABLE_STATEMENT, null, sql, rowCount, startNanos);
+        }
+    }
+
+    /**
+     * Reads back IDs staged by an operation
+     */
+    List<Object> selectStagedIds(StagedBulkOperation operation, SharedSessionContractImplementor session, Long operationId) {
+        final Queryable persister = operation.getTargetedPersister();
+        final PersisterSql entitySql = persisterSql.apply(persister);
+        final String idSubselect = entitySql.getIdSubselect(operation.getShard());
+        final String sql = withRowsEstimate(idSubselect, idSubselect, settings.getCacheEvictionLimit());
+        PreparedStatement ps = null;
+        try {
+            ps = session.getJdbcCoordinator().getStatementPreparer().prepareStatement(sql, false);
+            bindStagingParameters(ps, session, persister, operationId, 1);
+            final ResultSet rs = session.getJdbcCoordinator().getResultSetReturn().extract(ps);
+            final List<Object> ids = new ArrayList<>();
+            while (rs.next()) {
+                ids.add(persister.getIdentifierType().nullSafeGet(rs, new String[] {entitySql.getIdColumn()}, session, null));
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not select staged ids for " + operation.getDescription(), sql);
+        } finally {
+            if (ps != null) {
+                session.getJdbcCoordinator().getLogicalConnection().getResourceRegistry().release(ps);
+                session.getJdbcCoordinator().afterStatementExecution();
+            }
+        }
+    }
+
+    /**
+     * Binds the values identifying staged rows, in the order they appear in the ID insert-select and ID subselects
+     */
+    private int bindStagingParameters(PreparedStatement ps, SharedSessionContractImplementor session, Queryable persister, Long operationId, int position)
+            throws SQLException {
+        int count = 0;
+        if (settings.isBindDiscriminator()) {
+            settings.getDiscriminatorType().nullSafeSet(ps, persisterSql.apply(persister).getDiscriminatorValue(), position, session);
+            count++;
+        }
+        if (operationId != null) {
+            LongType.INSTANCE.set(ps, operationId, position + count, session);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the {@code {rows}} placeholder of {@link SingleGlobalTemporaryTableBulkIdStrategy#ID_SUBSELECT_HINTS} with the number of staged IDs, rounded up to a power of 10. Only the ID
+     * subselect is touched, so that literals of the statement containing the placeholder are kept as they are
+     */
+    private String withRowsEstimate(String sql, String idSubselect, int stagedCount) {
+        if (settings.getIdSubselectHints() == null || !settings.getIdSubselectHints().contains(ROWS_PLACEHOLDER)) {
+            return sql;
+        }
+        long estimate = 1;
+        while (estimate < stagedCount) {
+            estimate *= 10;
+        }
+        return sql.replace(idSubselect, idSubselect.replace(ROWS_PLACEHOLDER, String.valueOf(estimate)));
+    }
+}
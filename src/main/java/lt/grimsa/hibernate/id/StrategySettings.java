@@ -0,0 +1,406 @@
+package lt.grimsa.hibernate.id;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.HibernateException;
+import org.hibernate.boot.registry.selector.spi.StrategySelector;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.dialect.PostgreSQL91Dialect;
+import org.hibernate.dialect.SQLServerDialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+import org.jboss.logging.Logger;
+
+/**
+ * Settings of {@link SingleGlobalTemporaryTableBulkIdStrategy}, read when the strategy is prepared. Settings the dialect cannot support are
+ * replaced with their fallbacks here. ID columns and {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEAN_ROWS} may still be adjusted by
+ * {@link IdTableIntrospector} before the first bulk operation; everything else stays as read.
+ */
+final class StrategySettings {
+    // logged under the strategy's category, where users look for its messages
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+
+    /**
+     * Values of {@link SingleGlobalTemporaryTableBulkIdStrategy#DML_FORM}
+     */
+    enum DmlForm {
+        IN, EXISTS, JOIN
+    }
+
+    /**
+     * Values of {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEANUP_MODE}
+     */
+    enum CleanupMode {
+        IMMEDIATE, DEFERRED, TRUNCATE
+    }
+
+    /**
+     * Values of {@link SingleGlobalTemporaryTableBulkIdStrategy#SHARD_ROUTING}
+     */
+    enum ShardRouting {
+        SESSION, THREAD, ROUND_ROBIN
+    }
+
+    private final Dialect dialect;
+    private final List<String> tableNames;
+    private final ShardRouting shardRouting;
+    private final String idColumn;
+    private String numericIdColumn;
+    private String binaryIdColumn;
+    private final String discriminatorColumn;
+    private boolean cleanRows;
+    private final CleanupMode cleanupMode;
+    /**
+     * Indexes of ID tables that {@link IdTableIntrospector} found to delete their rows on commit, so that deferred cleanup can leave them to the commit
+     */
+    private Set<Integer> shardsDeletingRowsOnCommit = Collections.emptySet();
+    private final String operationIdColumn;
+    private final String operationIdSequence;
+    private final boolean bindDiscriminator;
+    private final boolean numericDiscriminator;
+    private final Map<String, Integer> discriminatorCodes;
+    private final boolean directDml;
+    private final int chunkSize;
+    private final int inlineIdThreshold;
+    private final boolean batchStatements;
+    private final BulkOperationListener listener;
+    private final String stagingHints;
+    private final String idSubselectHints;
+    private final String cleanupHints;
+    private final DmlForm dmlForm;
+    private final boolean reuseStagedIds;
+    private final int cacheEvictionLimit;
+    private final boolean writableCte;
+    private final boolean introspectTable;
+    private final boolean cleanRowsChosenByIntrospection;
+
+    StrategySettings(ConfigurationService configService, Dialect dialect, StrategySelector strategySelector) {
+        this.dialect = dialect;
+        final String tableSetting = Objects.requireNonNull(configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, String.class, null),
+                "Property " + SingleGlobalTemporaryTableBulkIdStrategy.TABLE + " must be set.");
+        final List<String> tables = new ArrayList<>();
+        for (String tableName : tableSetting.split(",")) {
+            if (!tableName.trim().isEmpty()) {
+                tables.add(tableName.trim());
+            }
+        }
+        this.tableNames = Collections.unmodifiableList(tables);
+        this.shardRouting = getEnumSetting(configService, SingleGlobalTemporaryTableBulkIdStrategy.SHARD_ROUTING, ShardRouting.class,
+                ShardRouting.SESSION);
+        this.idColumn = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.ID_COLUMN, String.class, "ID");
+        this.numericIdColumn = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN, String.class, null);
+        this.binaryIdColumn = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.BINARY_ID_COLUMN, String.class, null);
+        this.discriminatorColumn = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_COLUMN, String.class, "ENTITY_NAME");
+        this.cleanRows = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, StandardConverters.BOOLEAN, false);
+        final CleanupMode configuredCleanupMode = getEnumSetting(configService, SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, CleanupMode.class,
+                CleanupMode.IMMEDIATE);
+        if (configuredCleanupMode == CleanupMode.TRUNCATE && !supportsTransactionalTruncate(dialect)) {
+            log.warnf("Dialect %s commits the transaction when truncating a table, so %s truncate is replaced by deferred", dialect,
+                    SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE);
+            this.cleanupMode = CleanupMode.DEFERRED;
+        } else {
+            this.cleanupMode = configuredCleanupMode;
+        }
+        this.operationIdColumn = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, String.class, null);
+        this.operationIdSequence = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_SEQUENCE, String.class, null);
+        this.bindDiscriminator = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.BIND_DISCRIMINATOR, StandardConverters.BOOLEAN, false);
+        final String discriminatorType = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_TYPE, String.class, "string")
+                .trim().toLowerCase(Locale.ROOT);
+        if (!Arrays.asList("string", "numeric").contains(discriminatorType)) {
+            throw new HibernateException("Unsupported " + SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_TYPE + " [" + discriminatorType
+                    + "], expected one of: string, numeric");
+        }
+        this.numericDiscriminator = "numeric".equals(discriminatorType);
+        this.discriminatorCodes = parseDiscriminatorCodes(configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_CODES,
+                String.class, ""));
+        this.directDml = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.DIRECT_DML, StandardConverters.BOOLEAN, false);
+        final int configuredChunkSize = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.CHUNK_SIZE,
+                value -> Integer.parseInt(value.toString().trim()), 0);
+        if (configuredChunkSize > 0 && !dialect.getLimitHandler().supportsLimit()) {
+            log.warnf("Dialect %s does not support limiting selects, so %s is ignored", dialect, SingleGlobalTemporaryTableBulkIdStrategy.CHUNK_SIZE);
+            this.chunkSize = 0;
+        } else {
+            this.chunkSize = configuredChunkSize;
+        }
+        this.batchStatements = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.BATCH_STATEMENTS, StandardConverters.BOOLEAN, false);
+        this.inlineIdThreshold = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.INLINE_ID_THRESHOLD,
+                value -> Integer.parseInt(value.toString().trim()), 0);
+        final Object listenerSetting = configService.getSettings().get(SingleGlobalTemporaryTableBulkIdStrategy.LISTENER);
+        this.listener = listenerSetting == null ? null : strategySelector.resolveStrategy(BulkOperationListener.class, listenerSetting);
+        this.stagingHints = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.STAGING_HINTS, String.class, null);
+        this.idSubselectHints = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.ID_SUBSELECT_HINTS, String.class, null);
+        this.cleanupHints = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_HINTS, String.class, null);
+        this.dmlForm = getEnumSetting(configService, SingleGlobalTemporaryTableBulkIdStrategy.DML_FORM, DmlForm.class, DmlForm.IN);
+        this.reuseStagedIds = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.REUSE_STAGED_IDS, StandardConverters.BOOLEAN, false);
+        if (reuseStagedIds && operationIdColumn == null) {
+            throw new HibernateException("Property " + SingleGlobalTemporaryTableBulkIdStrategy.REUSE_STAGED_IDS + " requires "
+                    + SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN + " to be set");
+        }
+        this.cacheEvictionLimit = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.CACHE_EVICTION_LIMIT,
+                value -> Integer.parseInt(value.toString().trim()), 0);
+        final boolean configuredWritableCte = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.WRITABLE_CTE, StandardConverters.BOOLEAN,
+                false);
+        if (configuredWritableCte && !(dialect instanceof PostgreSQL91Dialect)) {
+            log.warnf("Dialect %s does not support data-modifying CTEs, so %s is ignored", dialect, SingleGlobalTemporaryTableBulkIdStrategy.WRITABLE_CTE);
+            this.writableCte = false;
+        } else {
+            this.writableCte = configuredWritableCte;
+        }
+        final Boolean configuredIntrospectTable = configService.getSetting(SingleGlobalTemporaryTableBulkIdStrategy.INTROSPECT_TABLE,
+                StandardConverters.BOOLEAN);
+        this.introspectTable = configuredIntrospectTable == null || configuredIntrospectTable;
+        // only an explicit setting may change the behaviour of operations, by default the layout is merely checked
+        this.cleanRowsChosenByIntrospection = configuredIntrospectTable != null
+                && configService.getSettings().get(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS) == null;
+    }
+
+    /**
+     * Reads a setting naming one of the constants of an enum, case-insensitively
+     */
+    private static <E extends Enum<E>> E getEnumSetting(ConfigurationService configService, String name, Class<E> type, E defaultValue) {
+        final String value = configService.getSetting(name, String.class, defaultValue.name()).trim();
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        final List<String> expected = new ArrayList<>();
+        for (E constant : type.getEnumConstants()) {
+            expected.add(constant.name().toLowerCase(Locale.ROOT));
+        }
+        throw new HibernateException("Unsupported " + name + " [" + value + "], expected one of: " + String.join(", ", expected));
+    }
+
+    /**
+     * @return whether {@code truncate table} takes part in the current transaction rather than committing it, as it does e.g. on Oracle, MySQL and H2
+     */
+    private static boolean supportsTransactionalTruncate(Dialect dialect) {
+        return dialect instanceof PostgreSQL81Dialect || dialect instanceof SQLServerDialect;
+    }
+
+    private static Map<String, Integer> parseDiscriminatorCodes(String setting) {
+        final Map<String, Integer> codes = new HashMap<>();
+        for (String entry : setting.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            final String[] entityNameAndCode = entry.split("=");
+            try {
+                codes.put(entityNameAndCode[0].trim(), Integer.valueOf(entityNameAndCode[1].trim()));
+            } catch (RuntimeException e) {
+                throw new HibernateException("Invalid discriminator code mapping [" + entry + "] in property "
+                        + SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_CODES, e);
+            }
+        }
+        return Collections.unmodifiableMap(codes);
+    }
+
+    Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * @return ID tables listed in {@link SingleGlobalTemporaryTableBulkIdStrategy#TABLE}, indexed by shard
+     */
+    List<String> getTableNames() {
+        return tableNames;
+    }
+
+    ShardRouting getShardRouting() {
+        return shardRouting;
+    }
+
+    String getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * @return {@link SingleGlobalTemporaryTableBulkIdStrategy#NUMERIC_ID_COLUMN}, or {@code null} if not set or missing from the ID table
+     */
+    String getNumericIdColumn() {
+        return numericIdColumn;
+    }
+
+    void setNumericIdColumn(String numericIdColumn) {
+        this.numericIdColumn = numericIdColumn;
+    }
+
+    /**
+     * @return {@link SingleGlobalTemporaryTableBulkIdStrategy#BINARY_ID_COLUMN}, or {@code null} if not set or missing from the ID table
+     */
+    String getBinaryIdColumn() {
+        return binaryIdColumn;
+    }
+
+    void setBinaryIdColumn(String binaryIdColumn) {
+        this.binaryIdColumn = binaryIdColumn;
+    }
+
+    /**
+     * @return column of the ID table matching the type of the entity's identifier
+     */
+    String getIdColumn(Queryable persister) {
+        switch (persister.getIdentifierType().sqlTypes(persister.getFactory())[0]) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return numericIdColumn != null ? numericIdColumn : idColumn;
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return binaryIdColumn != null ? binaryIdColumn : idColumn;
+            default:
+                return idColumn;
+        }
+    }
+
+    String getDiscriminatorColumn() {
+        return discriminatorColumn;
+    }
+
+    boolean isCleanRows() {
+        return cleanRows;
+    }
+
+    void setCleanRows(boolean cleanRows) {
+        this.cleanRows = cleanRows;
+    }
+
+    CleanupMode getCleanupMode() {
+        return cleanupMode;
+    }
+
+    Set<Integer> getShardsDeletingRowsOnCommit() {
+        return shardsDeletingRowsOnCommit;
+    }
+
+    void setShardsDeletingRowsOnCommit(Set<Integer> shardsDeletingRowsOnCommit) {
+        this.shardsDeletingRowsOnCommit = Collections.unmodifiableSet(shardsDeletingRowsOnCommit);
+    }
+
+    String getOperationIdColumn() {
+        return operationIdColumn;
+    }
+
+    String getOperationIdSequence() {
+        return operationIdSequence;
+    }
+
+    boolean isBindDiscriminator() {
+        return bindDiscriminator;
+    }
+
+    boolean isNumericDiscriminator() {
+        return numericDiscriminator;
+    }
+
+    /**
+     * @return codes of {@link SingleGlobalTemporaryTableBulkIdStrategy#DISCRIMINATOR_CODES} by entity name
+     */
+    Map<String, Integer> getDiscriminatorCodes() {
+        return discriminatorCodes;
+    }
+
+    Type getDiscriminatorType() {
+        return numericDiscriminator ? IntegerType.INSTANCE : StringType.INSTANCE;
+    }
+
+    String toDiscriminatorLiteral(Object discriminatorValue) {
+        return numericDiscriminator ? discriminatorValue.toString() : '\'' + discriminatorValue.toString() + '\'';
+    }
+
+    boolean isDirectDml() {
+        return directDml;
+    }
+
+    /**
+     * @return {@link SingleGlobalTemporaryTableBulkIdStrategy#CHUNK_SIZE}, or {@code 0} if deletes are not chunked
+     */
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return {@link SingleGlobalTemporaryTableBulkIdStrategy#INLINE_ID_THRESHOLD}, or {@code 0} if IDs are never inlined
+     */
+    int getInlineIdThreshold() {
+        return inlineIdThreshold;
+    }
+
+    boolean isBatchStatements() {
+        return batchStatements;
+    }
+
+    /**
+     * @return the configured listener, or {@code null} if bulk operations are not observed
+     */
+    BulkOperationListener getListener() {
+        return listener;
+    }
+
+    String getStagingHints() {
+        return stagingHints;
+    }
+
+    String getIdSubselectHints() {
+        return idSubselectHints;
+    }
+
+    String getCleanupHints() {
+        return cleanupHints;
+    }
+
+    /**
+     * @return the statement with optimizer hints placed by the dialect, or unchanged if there are none
+     */
+    String withHints(String sql, String hints) {
+        return hints == null || hints.trim().isEmpty() ? sql : dialect.getQueryHintString(sql, hints);
+    }
+
+    DmlForm getDmlForm() {
+        return dmlForm;
+    }
+
+    boolean isReuseStagedIds() {
+        return reuseStagedIds;
+    }
+
+    /**
+     * @return {@link SingleGlobalTemporaryTableBulkIdStrategy#CACHE_EVICTION_LIMIT}, or {@code 0} if Hibernate evicts whole regions
+     */
+    int getCacheEvictionLimit() {
+        return cacheEvictionLimit;
+    }
+
+    boolean isWritableCte() {
+        return writableCte;
+    }
+
+    boolean isIntrospectTable() {
+        return introspectTable;
+    }
+
+    /**
+     * @return whether {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEAN_ROWS} is to be chosen by whether the ID tables are permanent, i.e.
+     *         introspection is enabled explicitly and {@code CLEAN_ROWS} is not set
+     */
+    boolean isCleanRowsChosenByIntrospection() {
+        return cleanRowsChosenByIntrospection;
+    }
+}
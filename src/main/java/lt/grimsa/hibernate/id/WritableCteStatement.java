@@ -0,0 +1,69 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.param.ParameterSpecification;
+
+/**
+ * A whole bulk update/delete composed into a single statement with data-modifying common table expressions, see
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#WRITABLE_CTE}:
+ * <pre>
+ * with ht_ids (human_id, ENTITY_NAME) as (select ... from &lt;entity tables&gt; where ...),
+ *      ht_1 as (delete from Human_Dog where (Human_id) IN (select human_id from ht_ids)),
+ *      ht_2 as (delete from Human where (human_id) IN (select human_id from ht_ids)),
+ *      ...
+ * select count(*) from ht_ids
+ * </pre>
+ * All parts see the same snapshot of the data, so the ID select is not affected by the per-table statements, and constraints are checked once the
+ * whole statement completes. The statement returns the number of matching IDs, the same count as staging them would. Columns of {@code ht_ids} are
+ * named explicitly, as values bound into the select clause (e.g. the operation ID) are unnamed.
+ */
+final class WritableCteStatement {
+    static final String IDS_NAME = "ht_ids";
+
+    private final String sql;
+    private final List<ParameterSpecification> parameterSpecifications;
+
+    private WritableCteStatement(String sql, List<ParameterSpecification> parameterSpecifications) {
+        this.sql = sql;
+        this.parameterSpecifications = parameterSpecifications;
+    }
+
+    /**
+     * @param idSelect select of matching IDs, with the entity's identifier columns selected under their own names
+     * @param idColumnNames identifier columns of the entity
+     * @param extraColumnNames names for the values the ID select selects after the identifier columns
+     * @param idSubselect subselect of staged IDs the per-table statements are restricted by, replaced with a select from the ID select's results
+     * @param operation operation the per-table statements and the parameters of the ID select are taken from
+     */
+    static WritableCteStatement compose(String idSelect, String[] idColumnNames, List<String> extraColumnNames, String idSubselect,
+            StagedBulkOperation operation) {
+        final String idsSubselect = "select " + String.join(", ", idColumnNames) + " from " + IDS_NAME;
+        final List<String> columnNames = new ArrayList<>(Arrays.asList(idColumnNames));
+        columnNames.addAll(extraColumnNames);
+        final StringBuilder sql = new StringBuilder("with ").append(IDS_NAME).append(" (").append(String.join(", ", columnNames)).append(") as (")
+                .append(idSelect).append(')');
+        final List<ParameterSpecification> parameters = new ArrayList<>(operation.getIdSelectParameterSpecifications());
+        int index = 1;
+        for (BulkStatement statement : operation.getStatements()) {
+            sql.append(", ht_").append(index++).append(" as (").append(statement.getSql().replace(idSubselect, idsSubselect)).append(')');
+            parameters.addAll(statement.getParameterSpecifications());
+        }
+        sql.append(" select count(*) from ").append(IDS_NAME);
+        return new WritableCteStatement(sql.toString(), parameters);
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return parameters of the ID select's where clause followed by the parameters of each per-table statement, bound after the values identifying
+     * staged rows that the ID select also selects
+     */
+    List<ParameterSpecification> getParameterSpecifications() {
+        return parameterSpecifications;
+    }
+}
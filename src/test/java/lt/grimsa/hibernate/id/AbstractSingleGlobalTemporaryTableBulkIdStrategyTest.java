@@ -40,7 +40,8 @@ public abstract class AbstractSingleGlobalTemporaryTableBulkIdStrategyTest exten
         if (!ddlExecuted) {
             doInTransaction(() -> session.createNativeQuery("create global temporary table HT_TEMP_IDS ("
                     + getIdColumnName() + " CHAR(36), "
-                    + getEntityColumnName() + " VARCHAR(100))")
+                    + getEntityColumnName() + " " + getEntityColumnType()
+                    + getExtraColumnDefinitions() + ")")
                     .executeUpdate());
             ddlExecuted = true;
         }
@@ -55,6 +56,14 @@ public abstract class AbstractSingleGlobalTemporaryTableBulkIdStrategyTest exten
         return "ENTITY_NAME";
     }
 
+    protected String getEntityColumnType() {
+        return "VARCHAR(100)";
+    }
+
+    protected String getExtraColumnDefinitions() {
+        return "";
+    }
+
     @Override
     protected void cleanupTest() throws Exception {
         sqlLogger.removeAppender(sqlAppender);
@@ -0,0 +1,64 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyBatchStatementsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.BATCH_STATEMENTS, "true");
+    }
+
+    @Test
+    public void testDeleteStatementsAreBatched() {
+        // given
+        Human human = new Human();
+        Dog dog = new Dog();
+        int[] deletedCount = new int[1];
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> deletedCount[0] = session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then: entity was deleted
+        assertEquals(1, deletedCount[0]);
+        assertNull(session.find(Human.class, human.id));
+        assertNotNull(session.find(Dog.class, dog.id));
+
+        // then: rows were cleaned up by the usual statement after the batch
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+
+    @Test
+    public void testUpdateWithParametersIsNotBatched() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = :value").setParameter("value", "someCoolValue").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed and rows were cleaned up by a separate statement
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+}
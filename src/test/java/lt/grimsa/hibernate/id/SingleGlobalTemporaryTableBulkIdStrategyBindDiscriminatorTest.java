@@ -0,0 +1,73 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+import model.TestEntities.Reptile;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyBindDiscriminatorTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.BIND_DISCRIMINATOR, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Test
+    public void testDelete() {
+        // given
+        Human human = new Human();
+        Reptile reptile = new Reptile();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(reptile);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then: only the targeted entity was deleted
+        assertNull(session.find(Human.class, human.id));
+        assertNotNull(session.find(Reptile.class, reptile.id));
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS select testentiti0_.human_id as human_id, ? from Human testentiti0_ inner join Mammal testentiti0_1_ on testentiti0_.human_id=testentiti0_1_.id inner join Animal testentiti0_2_ on testentiti0_.human_id=testentiti0_2_.id"));
+        verify(sqlLog -> sqlLog.contains("delete from Human_Dog where (Human_human_id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=?)"));
+        verify(sqlLog -> sqlLog.contains("delete from Human where (human_id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=?)"));
+        verify(sqlLog -> sqlLog.contains("delete from Mammal where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=?)"));
+        verify(sqlLog -> sqlLog.contains("delete from Animal where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=?)"));
+        verify(sqlLog -> sqlLog.contains("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+
+    @Test
+    public void testUpdate() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = :value where h.id = :id")
+                    .setParameter("value", "someCoolValue")
+                    .setParameter("id", human.id)
+                    .executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS select testentiti0_.human_id as human_id, ? from Human testentiti0_ inner join Mammal testentiti0_1_ on testentiti0_.human_id=testentiti0_1_.id inner join Animal testentiti0_2_ on testentiti0_.human_id=testentiti0_2_.id where testentiti0_.human_id=?"));
+        verify(sqlLog -> sqlLog.contains("update Mammal set mammalField=? where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=?)"));
+    }
+}
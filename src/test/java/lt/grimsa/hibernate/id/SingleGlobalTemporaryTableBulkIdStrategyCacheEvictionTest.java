@@ -0,0 +1,104 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Animal;
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import java.util.Arrays;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.testing.cache.CachingRegionFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyCacheEvictionTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        configuration.setProperty(AvailableSettings.CACHE_REGION_FACTORY, CachingRegionFactory.class.getName());
+        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CACHE_EVICTION_LIMIT, "2");
+    }
+
+    @Override
+    protected String getCacheConcurrencyStrategy() {
+        return "read-write";
+    }
+
+    @Test
+    public void testOnlyAffectedEntitiesAreEvicted() {
+        // given
+        Dog updated = new Dog();
+        updated.mammalField = "a";
+        Dog kept = new Dog();
+        Human owner = new Human();
+        doInTransaction(() -> {
+            session.save(updated);
+            session.save(kept);
+            session.save(owner);
+        });
+        loadIntoCache(updated, kept, owner);
+
+        // when
+        doInTransaction(() -> assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'b' where d.mammalField = 'a'").executeUpdate()));
+
+        // then: the updated entity was evicted, so its fresh state is loaded
+        session.clear();
+        sessionFactory().getStatistics().clear();
+        doInTransaction(() -> assertEquals("b", session.find(Dog.class, updated.id).mammalField));
+        assertEquals(0, sessionFactory().getStatistics().getSecondLevelCacheHitCount());
+
+        // then: other entities are still cached
+        session.clear();
+        doInTransaction(() -> {
+            session.find(Dog.class, kept.id);
+            session.find(Human.class, owner.id);
+        });
+        assertEquals(2, sessionFactory().getStatistics().getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void testRegionIsEvictedAboveLimit() {
+        // given
+        Dog first = new Dog();
+        Dog second = new Dog();
+        Dog third = new Dog();
+        Human human = new Human();
+        Arrays.asList(first, second, third).forEach(dog -> dog.mammalField = "c");
+        doInTransaction(() -> {
+            session.save(first);
+            session.save(second);
+            session.save(third);
+            session.save(human);
+        });
+        loadIntoCache(first, second, third, human);
+
+        // when
+        doInTransaction(() -> assertEquals(3, session.createQuery("update Dog d set d.mammalField = 'b' where d.mammalField = 'c'").executeUpdate()));
+
+        // then: the whole region was evicted
+        session.clear();
+        sessionFactory().getStatistics().clear();
+        doInTransaction(() -> {
+            assertEquals("b", session.find(Dog.class, first.id).mammalField);
+            session.find(Human.class, human.id);
+        });
+        assertEquals(0, sessionFactory().getStatistics().getSecondLevelCacheHitCount());
+    }
+
+    private void loadIntoCache(Animal... entities) {
+        session.clear();
+        sessionFactory().getCache().evictAllRegions();
+        doInTransaction(() -> {
+            for (Animal entity : entities) {
+                session.find(entity.getClass(), entity.id);
+            }
+        });
+        session.clear();
+    }
+}
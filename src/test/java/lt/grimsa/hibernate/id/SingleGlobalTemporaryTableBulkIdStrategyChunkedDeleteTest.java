@@ -0,0 +1,73 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyChunkedDeleteTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CHUNK_SIZE, "2");
+    }
+
+    @Test
+    public void testDeleteIsExecutedInChunks() {
+        // given
+        Human human1 = new Human();
+        Human human2 = new Human();
+        Human human3 = new Human();
+        Dog dog = new Dog();
+        int[] deletedCount = new int[1];
+        doInTransaction(() -> {
+            session.save(human1);
+            session.save(human2);
+            session.save(human3);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> deletedCount[0] = session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then: all matching entities were deleted
+        assertEquals(3, deletedCount[0]);
+        assertNull(session.find(Human.class, human1.id));
+        assertNull(session.find(Human.class, human2.id));
+        assertNull(session.find(Human.class, human3.id));
+        assertNotNull(session.find(Dog.class, dog.id));
+
+        // then: IDs were staged in two limited chunks
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert into HT_TEMP_IDS select") && sqlLog.get(0).endsWith(" limit ?"));
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 2);
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+
+    @Test
+    public void testUpdateIsNotChunked() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: IDs were staged without a limit
+        verify(sqlLog -> !sqlLog.get(0).endsWith(" limit ?"));
+    }
+}
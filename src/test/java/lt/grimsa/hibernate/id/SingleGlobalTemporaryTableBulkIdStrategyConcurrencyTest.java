@@ -0,0 +1,174 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Load harness running bulk updates and deletes from many concurrent sessions against a single permanent ID table, as used on databases without
+ * global temporary tables. Every worker only touches its own entities, so any count mismatch means that operations saw each other's staged rows.
+ * <p>
+ * Runs a small load by default. Heavier runs can be configured with system properties, e.g.
+ * {@code mvn test -Dtest=SingleGlobalTemporaryTableBulkIdStrategyConcurrencyTest -Dbulk.load.threads=64 -Dbulk.load.iterations=500 -Dbulk.load.file=true}:
+ * <ul>
+ * <li>{@code bulk.load.threads} - number of concurrent sessions (default 4)</li>
+ * <li>{@code bulk.load.iterations} - update/delete rounds per session (default 10)</li>
+ * <li>{@code bulk.load.entities} - entities created per round (default 5)</li>
+ * <li>{@code bulk.load.file} - use a file-based H2 database in {@code target/} instead of an in-memory one (default false)</li>
+ * </ul>
+ * The throughput and latency report is logged at INFO level.
+ */
+public class SingleGlobalTemporaryTableBulkIdStrategyConcurrencyTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private static final int THREADS = Integer.getInteger("bulk.load.threads", 4);
+    private static final int ITERATIONS = Integer.getInteger("bulk.load.iterations", 10);
+    private static final int ENTITIES = Integer.getInteger("bulk.load.entities", 5);
+    private static final boolean FILE_DATABASE = Boolean.getBoolean("bulk.load.file");
+    private static final Logger log = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategyConcurrencyTest.class);
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(AvailableSettings.URL, (FILE_DATABASE ? "jdbc:h2:file:./target/h2-load/test" : "jdbc:h2:mem:load") + ";LOCK_TIMEOUT=10000");
+        configuration.setProperty(AvailableSettings.POOL_SIZE, String.valueOf(THREADS + 2));
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_LOAD_IDS");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Override
+    protected void prepareTest() throws Exception {
+        super.prepareTest();
+        doInTransaction(() -> session.createNativeQuery("create table if not exists HT_LOAD_IDS (ID CHAR(36), ENTITY_NAME VARCHAR(100), OPERATION_ID BIGINT)")
+                .executeUpdate());
+    }
+
+    @Test
+    public void testConcurrentSessionsDoNotInterfere() throws Exception {
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger lockTimeouts = new AtomicInteger();
+        final AtomicLong maxStagedRows = new AtomicLong();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        executor.submit(() -> {
+            monitorStagingTable(running, maxStagedRows);
+            return null;
+        });
+
+        // when
+        final long start = System.nanoTime();
+        final long elapsedNanos;
+        try {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int worker = 0; worker < THREADS; worker++) {
+                final String workerName = "w" + worker;
+                workers.add(executor.submit(() -> runWorker(workerName, latencies, lockTimeouts)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            // stops the monitor and any remaining workers even if a worker failed
+            running.set(false);
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // then
+        report(latencies, elapsedNanos, lockTimeouts.get(), maxStagedRows.get());
+        assertEquals(0, lockTimeouts.get());
+        assertEquals(THREADS * ITERATIONS * 2, latencies.size());
+        doInTransaction(() -> {
+            assertEquals(0, ((Number) session.createQuery("select count(h) from Human h").getSingleResult()).intValue());
+            assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_LOAD_IDS").getSingleResult()).intValue());
+        });
+    }
+
+    private void runWorker(String workerName, List<Long> latencies, AtomicInteger lockTimeouts) {
+        try (Session workerSession = sessionFactory().openSession()) {
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                final String created = workerName + "-" + iteration;
+                final String updated = created + "-updated";
+                workerSession.beginTransaction();
+                for (int i = 0; i < ENTITIES; i++) {
+                    Human human = new Human();
+                    human.mammalField = created;
+                    workerSession.save(human);
+                }
+                workerSession.flush();
+                try {
+                    long operationStart = System.nanoTime();
+                    int updatedCount = workerSession.createQuery("update Human h set h.mammalField = :updated where h.mammalField = :created")
+                            .setParameter("updated", updated)
+                            .setParameter("created", created)
+                            .executeUpdate();
+                    latencies.add(System.nanoTime() - operationStart);
+
+                    operationStart = System.nanoTime();
+                    int deletedCount = workerSession.createQuery("delete from Human h where h.mammalField = :updated")
+                            .setParameter("updated", updated)
+                            .executeUpdate();
+                    latencies.add(System.nanoTime() - operationStart);
+
+                    assertEquals(ENTITIES, updatedCount);
+                    assertEquals(ENTITIES, deletedCount);
+                    workerSession.getTransaction().commit();
+                } catch (PessimisticLockException | LockTimeoutException e) {
+                    lockTimeouts.incrementAndGet();
+                    workerSession.getTransaction().rollback();
+                }
+                workerSession.clear();
+            }
+        }
+    }
+
+    /**
+     * Tracks the number of committed rows in the ID table, which only grows if staged rows are not cleaned up
+     */
+    private void monitorStagingTable(AtomicBoolean running, AtomicLong maxStagedRows) throws InterruptedException {
+        try (Session monitorSession = sessionFactory().openSession()) {
+            while (running.get()) {
+                long stagedRows = ((Number) monitorSession.createNativeQuery("select count(*) from HT_LOAD_IDS").getSingleResult()).longValue();
+                maxStagedRows.accumulateAndGet(stagedRows, Math::max);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void report(List<Long> latencies, long elapsedNanos, int lockTimeouts, long maxStagedRows) {
+        final List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info(String.format("Bulk operation load: %d sessions, %d operations in %d ms (%.1f ops/s), latency p50=%.2f ms p95=%.2f ms p99=%.2f ms max=%.2f ms, "
+                        + "lock timeouts=%d, max committed staged rows=%d",
+                THREADS, sorted.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sorted.size() / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0), lockTimeouts, maxStagedRows));
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1e6;
+    }
+}
@@ -0,0 +1,45 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyDeferredCleanupOperationIdTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, "deferred");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Test
+    public void testManyOperationIdsAreCleanedUpInBoundedInLists() {
+        // given
+        doInTransaction(() -> session.save(new Human()));
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < 1001; i++) {
+                session.createQuery("update Human h set h.mammalField = :value").setParameter("value", "value" + i).executeUpdate();
+            }
+            transaction.commit();
+        });
+
+        // then: operation IDs were split into a full list of 1000 and a list of one
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("delete from HT_TEMP_IDS where OPERATION_ID in (")).count() == 2);
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where OPERATION_ID in (?)"));
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue()));
+    }
+}
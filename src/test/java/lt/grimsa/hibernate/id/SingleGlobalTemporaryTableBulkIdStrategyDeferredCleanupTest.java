@@ -0,0 +1,87 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyDeferredCleanupTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, "deferred");
+    }
+
+    @Test
+    public void testRowsOfAllOperationsAreCleanedUpOnceBeforeCommit() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.save(new Dog());
+        });
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate();
+            session.createQuery("update Dog d set d.mammalField = 'someCoolValue'").executeUpdate();
+            session.createQuery("delete from Human").executeUpdate();
+            transaction.commit();
+        });
+
+        // then: rows of the earlier Human update were cleaned up before staging the delete, everything else in a single statement as the last one
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("delete from HT_TEMP_IDS")).count() == 2);
+        verify(sqlLog -> sqlLog.indexOf("delete from HT_TEMP_IDS where ENTITY_NAME=?") < sqlLog.indexOf("delete from Human where (human_id) IN "
+                + "(select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where ENTITY_NAME in (?,?)"));
+
+        // then: no rows are left in the ID table
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue()));
+    }
+
+    @Test
+    public void testRepeatedOperationDoesNotSeeRowsOfEarlierOne() {
+        // given
+        Human first = new Human();
+        first.mammalField = "a";
+        Human second = new Human();
+        second.mammalField = "b";
+        doInTransaction(() -> {
+            session.save(first);
+            session.save(second);
+        });
+        session.clear();
+
+        // when
+        doInTransaction(() -> {
+            session.createQuery("update Human h set h.mammalField = 'c' where h.mammalField = 'a'").executeUpdate();
+            session.createQuery("update Human h set h.mammalField = 'd' where h.mammalField = 'b'").executeUpdate();
+        });
+
+        // then: the second update only affected its own entity
+        assertEquals("c", session.find(Human.class, first.id).mammalField);
+        assertEquals("d", session.find(Human.class, second.id).mammalField);
+    }
+
+    @Test
+    public void testRolledBackTransactionSkipsCleanup() {
+        // given
+        doInTransaction(() -> session.save(new Human()));
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("delete from Human").executeUpdate();
+            transaction.rollback();
+        });
+
+        // then
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.startsWith("delete from HT_TEMP_IDS")));
+    }
+}
@@ -0,0 +1,140 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyDirectDmlTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DIRECT_DML, "true");
+        configuration.getProperties().put(SingleGlobalTemporaryTableBulkIdStrategy.LISTENER, new BulkOperationListener() {
+            @Override
+            public void phaseStarted(String entityName, Phase phase, String tableName, String sql) {
+                events.add("started " + phase + " " + tableName);
+            }
+
+            @Override
+            public void phaseCompleted(String entityName, Phase phase, String tableName, String sql, int rowCount, long durationNanos) {
+                events.add("completed " + phase + " " + tableName + " " + rowCount);
+            }
+        });
+    }
+
+    @Test
+    public void testUpdateOfOwnTableWithoutWhereClause() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Mammal m set m.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: a single plain update was executed
+        verify(sqlLog -> sqlLog.get(0).equals("update Mammal set mammalField='someCoolValue'"));
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+
+    @Test
+    public void testPhasesAreReported() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.flush();
+            events.clear();
+
+            // when
+            session.createQuery("update Mammal m set m.mammalField = 'someCoolValue'").executeUpdate();
+        });
+
+        // then: the statement was reported within the operation
+        assertEquals("[started OPERATION null, started TABLE_STATEMENT Mammal, completed TABLE_STATEMENT Mammal 1, completed OPERATION null 1]",
+                events.toString());
+    }
+
+    @Test
+    public void testUpdateOfSuperclassTable() {
+        // given
+        Human human = new Human();
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: only the targeted entity was updated
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+        assertNull(session.find(Dog.class, dog.id).mammalField);
+
+        // then: a single update restricted by a subquery was executed
+        verify(sqlLog -> sqlLog.get(0).equals("update Mammal set mammalField='someCoolValue' where (id) IN (select testentiti0_.human_id as human_id from Human testentiti0_ inner join Mammal testentiti0_1_ on testentiti0_.human_id=testentiti0_1_.id inner join Animal testentiti0_2_ on testentiti0_.human_id=testentiti0_2_.id)"));
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+
+    @Test
+    public void testUpdateWithWhereClause() {
+        // given
+        Human human = new Human();
+        Human otherHuman = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(otherHuman);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Mammal m set m.mammalField = :value where m.id = :id")
+                    .setParameter("value", "someCoolValue")
+                    .setParameter("id", human.id)
+                    .executeUpdate());
+            session.clear();
+        });
+
+        // then: only the matching entity was updated
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+        assertNull(session.find(Human.class, otherHuman.id).mammalField);
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+
+    @Test
+    public void testDeleteOfSeveralTablesUsesIdTable() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Mammal").executeUpdate());
+            session.clear();
+        });
+
+        // then: entity was deleted
+        assertNull(session.find(Human.class, human.id));
+
+        // then: IDs were staged as usual
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert into HT_TEMP_IDS select"));
+    }
+}
@@ -0,0 +1,66 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyExistsDmlFormTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DML_FORM, "exists");
+    }
+
+    @Test
+    public void testUpdateUsesCorrelatedExists() {
+        // given
+        Human human = new Human();
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = :value").setParameter("value", "someCoolValue").executeUpdate());
+            session.clear();
+        });
+
+        // then: only the targeted entity was updated
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+        assertNull(session.find(Dog.class, dog.id).mammalField);
+
+        // then
+        verify(sqlLog -> sqlLog.get(1).equals("update Mammal set mammalField=? where exists "
+                + "(select 1 from HT_TEMP_IDS ht_ where ht_.ENTITY_NAME='model.TestEntities$Human' and ht_.ID=Mammal.id)"));
+    }
+
+    @Test
+    public void testDeleteUsesCorrelatedExists() {
+        // given
+        Human human = new Human();
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then
+        assertNull(session.find(Human.class, human.id));
+        assertNotNull(session.find(Dog.class, dog.id));
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from Animal where exists "
+                + "(select 1 from HT_TEMP_IDS ht_ where ht_.ENTITY_NAME='model.TestEntities$Human' and ht_.ID=Animal.id)"));
+    }
+}
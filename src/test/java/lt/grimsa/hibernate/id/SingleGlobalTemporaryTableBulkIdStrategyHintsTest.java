@@ -0,0 +1,79 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyHintsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(AvailableSettings.DIALECT, CommentHintH2Dialect.class.getName());
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.STAGING_HINTS, "APPEND");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.ID_SUBSELECT_HINTS, "CARDINALITY(HT_TEMP_IDS {rows})");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_HINTS, "NO_PARALLEL");
+    }
+
+    @Test
+    public void testHintsAreApplied() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            for (int i = 0; i < 11; i++) {
+                session.save(i == 0 ? human : new Human());
+            }
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: hints were rendered by the dialect, with the staged row count rounded up to a power of 10
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert /*+ APPEND */ into HT_TEMP_IDS select"));
+        verify(sqlLog -> sqlLog.get(1).endsWith("IN (select /*+ CARDINALITY(HT_TEMP_IDS 100) */ ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+        verify(sqlLog -> sqlLog.get(2).equals("delete /*+ NO_PARALLEL */ from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+
+    @Test
+    public void testRowsPlaceholderIsOnlyReplacedInIdSubselect() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = '{rows}' where h.id = :id")
+                    .setParameter("id", human.id)
+                    .executeUpdate());
+            session.clear();
+        });
+
+        // then: the literal was kept as is
+        assertEquals("{rows}", session.find(Human.class, human.id).mammalField);
+        verify(sqlLog -> sqlLog.get(1).equals("update Mammal set mammalField='{rows}' where (id) IN "
+                + "(select /*+ CARDINALITY(HT_TEMP_IDS 1) */ ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+    }
+
+    /**
+     * Places hints after the statement keyword, like Oracle does. H2 ignores them as comments
+     */
+    public static class CommentHintH2Dialect extends H2Dialect {
+        @Override
+        public String getQueryHintString(String query, String hints) {
+            final int keywordEnd = query.indexOf(' ');
+            return query.substring(0, keywordEnd) + " /*+ " + hints + " */" + query.substring(keywordEnd);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyInlineIdsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.INLINE_ID_THRESHOLD, "4");
+    }
+
+    @Test
+    public void testUpdateOfFewRowsInlinesIds() {
+        // given
+        Human human1 = new Human();
+        Human human2 = new Human();
+        Human human3 = new Human();
+        Dog dog = new Dog();
+        int[] updatedCount = new int[1];
+        doInTransaction(() -> {
+            session.save(human1);
+            session.save(human2);
+            session.save(human3);
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> updatedCount[0] = session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals(3, updatedCount[0]);
+        assertEquals("someCoolValue", session.find(Human.class, human3.id).mammalField);
+        assertNull(session.find(Dog.class, dog.id).mammalField);
+
+        // then: IDs were selected and inlined into a list padded to a power of two, without touching the ID table
+        verify(sqlLog -> sqlLog.get(0).startsWith("select testentiti0_.human_id as human_id"));
+        verify(sqlLog -> sqlLog.get(1).equals("update Mammal set mammalField='someCoolValue' where (id) IN (?,?,?,?)"));
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.contains("HT_TEMP_IDS")));
+    }
+
+    @Test
+    public void testDeleteOfManyRowsFallsBackToIdTable() {
+        // given
+        Human[] humans = new Human[5];
+        doInTransaction(() -> {
+            for (int i = 0; i < humans.length; i++) {
+                humans[i] = new Human();
+                session.save(humans[i]);
+            }
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then: entities were deleted
+        for (Human human : humans) {
+            assertNull(session.find(Human.class, human.id));
+        }
+
+        // then: IDs were staged after the threshold was exceeded
+        verify(sqlLog -> sqlLog.get(1).startsWith("insert into HT_TEMP_IDS select"));
+    }
+
+    @Test
+    public void testDeleteMatchingNothingExecutesOnlySelect() {
+        // given
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then
+        assertNotNull(session.find(Dog.class, dog.id));
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+}
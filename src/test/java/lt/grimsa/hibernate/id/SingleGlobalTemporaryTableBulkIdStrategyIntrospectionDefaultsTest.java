@@ -0,0 +1,91 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Introspection that is not set explicitly only checks the layout, without choosing {@link SingleGlobalTemporaryTableBulkIdStrategy#CLEAN_ROWS}.
+ * All test entities have UUID IDs, so they are staged in the binary ID column and the table needs no
+ * {@link SingleGlobalTemporaryTableBulkIdStrategy#ID_COLUMN}
+ */
+public class SingleGlobalTemporaryTableBulkIdStrategyIntrospectionDefaultsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private static final Logger strategyLogger = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+    private static final List<String> warnings = new ArrayList<>();
+    private static final AppenderSkeleton warningAppender = new AppenderSkeleton() {
+        @Override
+        protected void append(LoggingEvent event) {
+            warnings.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private static Level originalLevel;
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        // the table must exist when the session factory is built, so it is created whenever a connection is opened
+        configuration.setProperty(AvailableSettings.URL,
+                "jdbc:h2:mem:introspectiondefaults;INIT=create table if not exists HT_PERMANENT_IDS (BINARY_ID BINARY(16), ENTITY_NAME VARCHAR(100))");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_PERMANENT_IDS");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.BINARY_ID_COLUMN, "BINARY_ID");
+
+        // warnings are logged while the session factory is built, before any test runs
+        originalLevel = strategyLogger.getLevel();
+        strategyLogger.setLevel(Level.WARN);
+        strategyLogger.addAppender(warningAppender);
+    }
+
+    @Override
+    protected void cleanupTest() throws Exception {
+        strategyLogger.removeAppender(warningAppender);
+        strategyLogger.setLevel(originalLevel);
+        super.cleanupTest();
+    }
+
+    @Test
+    public void testRowsOfPermanentTableAreKeptWithWarning() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            assertEquals(1, session.createQuery("delete from Human").executeUpdate());
+        });
+
+        // then: staged rows were kept, as CLEAN_ROWS is not set, and the accumulation was reported
+        doInTransaction(() -> {
+            assertEquals(1, ((Number) session.createNativeQuery("select count(*) from HT_PERMANENT_IDS").getSingleResult()).intValue());
+            session.createNativeQuery("delete from HT_PERMANENT_IDS").executeUpdate();
+        });
+        assertTrue(warnings.contains("ID tables [HT_PERMANENT_IDS] include a permanent table, but " + SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS
+                + " is not enabled, so staged rows will accumulate"));
+    }
+
+    @Test
+    public void testIdColumnNotUsedByAnyEntityIsNotRequired() {
+        assertTrue(warnings.stream().noneMatch(warning -> warning.startsWith("Column ID does not exist")));
+    }
+}
@@ -0,0 +1,92 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyIntrospectionTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private static final Logger strategyLogger = Logger.getLogger(SingleGlobalTemporaryTableBulkIdStrategy.class);
+    private static final List<String> warnings = new ArrayList<>();
+    private static final AppenderSkeleton warningAppender = new AppenderSkeleton() {
+        @Override
+        protected void append(LoggingEvent event) {
+            warnings.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private static Level originalLevel;
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        // the table must exist when the session factory is built, so it is created whenever a connection is opened
+        configuration.setProperty(AvailableSettings.URL,
+                "jdbc:h2:mem:introspection;INIT=create table if not exists HT_PERMANENT_IDS (ID CHAR(36), ENTITY_NAME VARCHAR(100))");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_PERMANENT_IDS");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN, "NUMERIC_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.INTROSPECT_TABLE, "true");
+
+        // warnings are logged while the session factory is built, before any test runs
+        originalLevel = strategyLogger.getLevel();
+        strategyLogger.setLevel(Level.WARN);
+        strategyLogger.addAppender(warningAppender);
+    }
+
+    @Override
+    protected void cleanupTest() throws Exception {
+        strategyLogger.removeAppender(warningAppender);
+        strategyLogger.setLevel(originalLevel);
+        super.cleanupTest();
+    }
+
+    @Test
+    public void testLayoutProblemsAreReported() {
+        assertTrue(warnings.contains("Column NUMERIC_ID set by " + SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN
+                + " does not exist in ID table HT_PERMANENT_IDS, so IDs are staged in ID instead"));
+        assertTrue(warnings.stream().anyMatch(warning -> warning.startsWith("ID table HT_PERMANENT_IDS is a permanent table shared by all sessions")));
+        assertTrue(warnings.contains("Permanent ID table HT_PERMANENT_IDS has no index on (ENTITY_NAME, ID), so ID subselects and cleanup will scan "
+                + "rows of all sessions"));
+        // UUIDs are bound as binary values
+        assertTrue(warnings.stream().anyMatch(warning -> warning.contains(Human.class.getName())
+                && warning.contains("are compared with column ID of ID table HT_PERMANENT_IDS of another type")));
+    }
+
+    @Test
+    public void testRowsOfPermanentTableAreCleanedUpWhenIntrospectionIsSet() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            assertEquals(1, session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then
+        assertNull(session.find(Human.class, human.id));
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_PERMANENT_IDS").getSingleResult()).intValue()));
+    }
+}
@@ -0,0 +1,57 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lt.grimsa.hibernate.id.BulkOperationListener.Phase;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyListenerTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private final RecordingListener listener = new RecordingListener();
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.getProperties().put(SingleGlobalTemporaryTableBulkIdStrategy.LISTENER, listener);
+    }
+
+    @Test
+    public void testPhasesAreReported() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.save(new Human());
+            session.flush();
+            listener.events.clear();
+
+            // when
+            session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate();
+        });
+
+        // then: phases were reported in order, nested within the operation
+        assertEquals("[started Human OPERATION null, started Human STAGING null, completed Human STAGING null 2, "
+                + "started Human TABLE_STATEMENT Mammal, completed Human TABLE_STATEMENT Mammal 2, "
+                + "started Human CLEANUP null, completed Human CLEANUP null 2, "
+                + "completed Human OPERATION null 2]", listener.events.toString().replace(Human.class.getName(), "Human"));
+    }
+
+    private static class RecordingListener implements BulkOperationListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void phaseStarted(String entityName, Phase phase, String tableName, String sql) {
+            events.add("started " + entityName + " " + phase + " " + tableName);
+        }
+
+        @Override
+        public void phaseCompleted(String entityName, Phase phase, String tableName, String sql, int rowCount, long durationNanos) {
+            events.add("completed " + entityName + " " + phase + " " + tableName + " " + rowCount);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+import model.TestEntities.Reptile;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyNumericDiscriminatorTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_TYPE, "numeric");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DISCRIMINATOR_CODES, "model.TestEntities$Mammal=1, model.TestEntities$Human=2");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Override
+    protected String getEntityColumnType() {
+        return "INTEGER";
+    }
+
+    @Test
+    public void testDelete() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.save(new Reptile());
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Mammal").executeUpdate());
+            session.clear();
+        });
+
+        // then: entity was deleted
+        assertNull(session.find(Human.class, human.id));
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS select testentiti0_.id as id, 1 as ENTITY_NAME from Mammal testentiti0_ inner join Animal testentiti0_1_ on testentiti0_.id=testentiti0_1_.id"));
+        verify(sqlLog -> sqlLog.contains("delete from Human where (human_id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=1)"));
+        verify(sqlLog -> sqlLog.contains("delete from Animal where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=1)"));
+        verify(sqlLog -> sqlLog.contains("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+    }
+
+    @Test
+    public void testUpdate() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.contains("update Mammal set mammalField='someCoolValue' where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME=2)"));
+    }
+}
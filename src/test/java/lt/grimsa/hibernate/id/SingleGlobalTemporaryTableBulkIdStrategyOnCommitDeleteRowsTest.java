@@ -0,0 +1,53 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.Oracle10gDialect;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs with the Oracle dialect over H2, which does not report whether a temporary table deletes its rows on commit, so introspection reads a stand-in
+ * of Oracle's {@code all_tables} catalog instead
+ */
+public class SingleGlobalTemporaryTableBulkIdStrategyOnCommitDeleteRowsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(AvailableSettings.DIALECT, Oracle10gDialect.class.getName());
+        // the tables must exist when the session factory is built, so they are created whenever a connection is opened. The ID table is qualified
+        // with its schema, as the catalog query otherwise compares the owner with the current user
+        configuration.setProperty(AvailableSettings.URL, "jdbc:h2:mem:oncommit;MODE=Oracle;INIT="
+                + "create global temporary table if not exists HT_COMMIT_IDS (ID CHAR(36), ENTITY_NAME VARCHAR(100))\\;"
+                + "create table if not exists ALL_TABLES (OWNER VARCHAR(30), TABLE_NAME VARCHAR(30), TEMPORARY CHAR(1), DURATION VARCHAR(15))\\;"
+                + "merge into ALL_TABLES key (TABLE_NAME) values ('PUBLIC', 'HT_COMMIT_IDS', 'Y', 'SYS$TRANSACTION')");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "PUBLIC.HT_COMMIT_IDS");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, "deferred");
+    }
+
+    @Test
+    public void testDeferredCleanupIsLeftToCommit() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> session.save(human));
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("delete from Human").executeUpdate();
+            transaction.commit();
+        });
+        session.clear();
+
+        // then: the entity was deleted without deleting the staged rows before commit
+        assertNull(session.find(Human.class, human.id));
+        verify(sqlLog -> sqlLog.stream().anyMatch(sql -> sql.startsWith("insert into PUBLIC.HT_COMMIT_IDS")));
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.startsWith("delete from PUBLIC.HT_COMMIT_IDS")));
+    }
+}
@@ -0,0 +1,78 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyOperationIdSequenceTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_SEQUENCE, "HT_OPERATION_SEQ");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.INLINE_ID_THRESHOLD, "2");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Override
+    protected void prepareTest() throws Exception {
+        super.prepareTest();
+        doInTransaction(() -> session.createNativeQuery("create sequence if not exists HT_OPERATION_SEQ").executeUpdate());
+    }
+
+    @Test
+    public void testInlinedIdsDoNotDrawOperationId() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: the sequence was not queried
+        verify(sqlLog -> sqlLog.size() == 2);
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.contains("HT_OPERATION_SEQ")));
+    }
+
+    @Test
+    public void testStagedIdsDrawOperationId() {
+        // given
+        Human[] humans = new Human[3];
+        doInTransaction(() -> {
+            for (int i = 0; i < humans.length; i++) {
+                humans[i] = new Human();
+                session.save(humans[i]);
+            }
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human").executeUpdate());
+            session.clear();
+        });
+
+        // then: entities were deleted
+        for (Human human : humans) {
+            assertNull(session.find(Human.class, human.id));
+        }
+
+        // then: the operation id was drawn after the threshold was exceeded, before staging
+        verify(sqlLog -> sqlLog.get(1).contains("HT_OPERATION_SEQ"));
+        verify(sqlLog -> sqlLog.get(2).startsWith("insert into HT_TEMP_IDS (ID, ENTITY_NAME, OPERATION_ID) select"));
+    }
+}
@@ -0,0 +1,66 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyOperationIdTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Test
+    public void testDelete() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Mammal").executeUpdate());
+            session.clear();
+        });
+
+        // then: entity was deleted
+        assertNull(session.find(Human.class, human.id));
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS (ID, ENTITY_NAME, OPERATION_ID) select testentiti0_.id as id, 'model.TestEntities$Mammal' as ENTITY_NAME, ? from Mammal testentiti0_ inner join Animal testentiti0_1_ on testentiti0_.id=testentiti0_1_.id"));
+        verify(sqlLog -> sqlLog.contains("delete from Human where (human_id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Mammal' and OPERATION_ID=?)"));
+        verify(sqlLog -> sqlLog.contains("delete from Animal where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Mammal' and OPERATION_ID=?)"));
+    }
+
+    @Test
+    public void testSubsequentUpdatesDoNotSeeEachOthersRows() {
+        // given
+        Human first = new Human();
+        Human second = new Human();
+        doInTransaction(() -> {
+            session.save(first);
+            session.save(second);
+            session.flush();
+
+            // when: rows staged by the first update are not cleaned up before the second one
+            session.createQuery("update Human h set h.mammalField = 'first' where h.id = :id").setParameter("id", first.id).executeUpdate();
+            session.createQuery("update Human h set h.mammalField = 'second' where h.id = :id").setParameter("id", second.id).executeUpdate();
+            session.clear();
+        });
+
+        // then: each update only affected its own entity
+        assertEquals("first", session.find(Human.class, first.id).mammalField);
+        assertEquals("second", session.find(Human.class, second.id).mammalField);
+    }
+}
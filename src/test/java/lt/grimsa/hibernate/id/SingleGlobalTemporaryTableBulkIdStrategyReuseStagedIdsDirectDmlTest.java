@@ -0,0 +1,45 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyReuseStagedIdsDirectDmlTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.REUSE_STAGED_IDS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DIRECT_DML, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Test
+    public void testDirectDmlInvalidatesStagedIds() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Dog());
+            session.flush();
+
+            // when: a direct update changes the column the staged IDs were matched by
+            doWithLogging(() -> {
+                assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'a', d.name = 'b' where d.breed is null").executeUpdate());
+                assertEquals(1, session.createQuery("update Dog d set d.breed = 'c'").executeUpdate());
+                assertEquals(0, session.createQuery("delete from Dog d where d.breed is null").executeUpdate());
+            });
+        });
+
+        // then: the first update was staged, the second one was executed directly, and the delete staged IDs again
+        verify(sqlLog -> sqlLog.contains("update Dog set breed='c'"));
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 2);
+    }
+}
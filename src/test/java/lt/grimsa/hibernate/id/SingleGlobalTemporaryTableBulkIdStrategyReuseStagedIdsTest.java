@@ -0,0 +1,164 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Animal;
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+import model.TestEntities.Kennel;
+import model.TestEntities.Mammal;
+import model.TestEntities.Reptile;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyReuseStagedIdsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.REUSE_STAGED_IDS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Override
+    protected Class<?>[] getAnnotatedClasses() {
+        return new Class<?>[]{Animal.class, Mammal.class, Reptile.class, Human.class, Dog.class, Kennel.class};
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Test
+    public void testDeleteReusesIdsStagedByUpdate() {
+        // given
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(dog);
+            session.save(new Dog());
+            session.flush();
+
+            // when
+            doWithLogging(() -> {
+                assertEquals(2, session.createQuery("update Dog d set d.mammalField = 'someCoolValue'").executeUpdate());
+                assertEquals(2, session.createQuery("delete from Dog d").executeUpdate());
+            });
+            session.clear();
+        });
+
+        // then: entities were deleted
+        assertNull(session.find(Dog.class, dog.id));
+
+        // then: IDs were staged once and cleaned up before commit
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 1);
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue()));
+    }
+
+    @Test
+    public void testChangedEntitiesInvalidateStagedIds() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Dog());
+            session.flush();
+
+            // when: another dog is inserted between the operations
+            doWithLogging(() -> {
+                assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'someCoolValue'").executeUpdate());
+                session.save(new Dog());
+                session.flush();
+                assertEquals(2, session.createQuery("delete from Dog d").executeUpdate());
+            });
+        });
+
+        // then: IDs were staged again
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 2);
+    }
+
+    @Test
+    public void testUpdateOfRestrictedColumnInvalidatesStagedIds() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Dog());
+            session.flush();
+
+            // when
+            doWithLogging(() -> {
+                assertEquals(0, session.createQuery("update Dog d set d.mammalField = 'a' where d.mammalField = 'b'").executeUpdate());
+                assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'b' where d.mammalField is null").executeUpdate());
+                assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'a' where d.mammalField = 'b'").executeUpdate());
+            });
+        });
+
+        // then: every update staged its own IDs
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 3);
+    }
+
+    @Test
+    public void testUpdateOfOtherColumnKeepsStagedIds() {
+        // given
+        Dog dog = new Dog();
+        dog.breed = "name";
+        doInTransaction(() -> {
+            session.save(dog);
+            session.flush();
+
+            // when: the assigned column only appears in the where clause as a literal
+            doWithLogging(() -> {
+                assertEquals(1, session.createQuery("update Dog d set d.name = 'x' where d.breed = 'name'").executeUpdate());
+                assertEquals(1, session.createQuery("delete from Dog d where d.breed = 'name'").executeUpdate());
+            });
+        });
+
+        // then: IDs were staged once
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 1);
+    }
+
+    @Test
+    public void testRestrictionIsResolvedForUnqualifiedProperties() {
+        // given
+        Dog dog = new Dog();
+        dog.breed = "a";
+        doInTransaction(() -> {
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> {
+                assertEquals(1, session.createQuery("update Dog set name = 'x' where breed = 'a'").executeUpdate());
+                assertEquals(1, session.createQuery("update Dog set breed = 'b' where breed = 'a'").executeUpdate());
+                assertEquals(0, session.createQuery("update Dog set name = 'y' where breed = 'a'").executeUpdate());
+            });
+            session.createQuery("delete from Dog").executeUpdate();
+        });
+
+        // then: only the update of the restricted column invalidated the staged IDs
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 2);
+    }
+
+    @Test
+    public void testRestrictionReadingSingleTableEntityIsNotReused() {
+        // given
+        Kennel kennel = new Kennel();
+        kennel.name = "open";
+        doInTransaction(() -> {
+            session.save(kennel);
+            session.save(new Dog());
+            session.flush();
+
+            // when: the kennel is changed by a bulk update the strategy does not see
+            doWithLogging(() -> {
+                assertEquals(1, session.createQuery("update Dog d set d.mammalField = 'a' where exists (select k.id from Kennel k where k.name = 'open')")
+                        .executeUpdate());
+                session.createQuery("update Kennel k set k.name = 'closed'").executeUpdate();
+                assertEquals(0, session.createQuery("delete from Dog d where exists (select k.id from Kennel k where k.name = 'open')").executeUpdate());
+            });
+        });
+
+        // then: IDs were staged again
+        verify(sqlLog -> sqlLog.stream().filter(sql -> sql.startsWith("insert into HT_TEMP_IDS")).count() == 2);
+    }
+}
@@ -58,4 +58,19 @@ public class SingleGlobalTemporaryTableBulkIdStrategyRowCleanupTest extends Abst
         // then: row delete statement was executed
         verify(sqlLog -> sqlLog.contains(("delete from HT_TEMP_IDS where ENTITY_NAME=?")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateMatchingNothingSkipsCleanup() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue' where h.mammalField = 'noSuchValue'").executeUpdate());
+        });
+
+        // then: neither the update nor the row delete statement was executed
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+}
@@ -0,0 +1,56 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyShardedDeferredCleanupTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_TEMP_IDS, HT_TEMP_IDS_2");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.SHARD_ROUTING, "round_robin");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, "deferred");
+    }
+
+    @Override
+    protected void prepareTest() throws Exception {
+        super.prepareTest();
+        doInTransaction(() -> session.createNativeQuery("create global temporary table if not exists HT_TEMP_IDS_2 (ID CHAR(36), ENTITY_NAME VARCHAR(100))")
+                .executeUpdate());
+    }
+
+    @Test
+    public void testEachTableIsCleanedUpOfItsOwnRows() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.save(new Dog());
+        });
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate();
+            session.createQuery("update Dog d set d.mammalField = 'someCoolValue'").executeUpdate();
+            transaction.commit();
+        });
+
+        // then: each table was cleaned up with the discriminator of the single entity staged in it
+        verify(sqlLog -> sqlLog.contains("delete from HT_TEMP_IDS where ENTITY_NAME in (?)"));
+        verify(sqlLog -> sqlLog.contains("delete from HT_TEMP_IDS_2 where ENTITY_NAME in (?)"));
+
+        // then: no rows are left in the ID tables
+        doInTransaction(() -> {
+            assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue());
+            assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS_2").getSingleResult()).intValue());
+        });
+    }
+}
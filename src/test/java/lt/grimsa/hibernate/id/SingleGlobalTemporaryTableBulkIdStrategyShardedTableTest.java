@@ -0,0 +1,54 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyShardedTableTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.TABLE, "HT_TEMP_IDS, HT_TEMP_IDS_2");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.SHARD_ROUTING, "round_robin");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+    }
+
+    @Override
+    protected void prepareTest() throws Exception {
+        super.prepareTest();
+        doInTransaction(() -> session.createNativeQuery("create global temporary table if not exists HT_TEMP_IDS_2 (ID CHAR(36), ENTITY_NAME VARCHAR(100))")
+                .executeUpdate());
+    }
+
+    @Test
+    public void testOperationsAreSpreadAcrossTables() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> {
+                session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate();
+                session.createQuery("update Human h set h.mammalField = 'otherValue'").executeUpdate();
+            });
+            session.clear();
+        });
+
+        // then: both updates were performed
+        assertEquals("otherValue", session.find(Human.class, human.id).mammalField);
+
+        // then: each update staged, used and cleaned up IDs in its own table
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert into HT_TEMP_IDS select"));
+        verify(sqlLog -> sqlLog.get(1).endsWith("IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+        verify(sqlLog -> sqlLog.get(2).equals("delete from HT_TEMP_IDS where ENTITY_NAME=?"));
+        verify(sqlLog -> sqlLog.get(3).startsWith("insert into HT_TEMP_IDS_2 select"));
+        verify(sqlLog -> sqlLog.get(4).endsWith("IN (select ID from HT_TEMP_IDS_2 where ENTITY_NAME='model.TestEntities$Human')"));
+        verify(sqlLog -> sqlLog.get(5).equals("delete from HT_TEMP_IDS_2 where ENTITY_NAME=?"));
+    }
+}
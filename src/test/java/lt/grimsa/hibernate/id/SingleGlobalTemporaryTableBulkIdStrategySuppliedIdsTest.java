@@ -0,0 +1,94 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Dog;
+import model.TestEntities.Human;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategySuppliedIdsTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        // supplied IDs must still be staged when direct DML would otherwise apply
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.DIRECT_DML, "true");
+    }
+
+    @Test
+    public void testDelete() {
+        // given
+        Human first = new Human();
+        Human second = new Human();
+        Human kept = new Human();
+        doInTransaction(() -> {
+            session.save(first);
+            session.save(second);
+            session.save(kept);
+            session.flush();
+
+            // when
+            doWithLogging(() -> assertEquals(2, BulkIdOperations.delete(session, Human.class, Stream.of(first.id, second.id))));
+            session.clear();
+        });
+
+        // then: only entities with supplied IDs were deleted
+        assertNull(session.find(Human.class, first.id));
+        assertNull(session.find(Human.class, second.id));
+        assertNotNull(session.find(Human.class, kept.id));
+
+        // then: IDs were inserted into the ID table and used by the per-table statements
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS (ID, ENTITY_NAME) values (?, 'model.TestEntities$Human')"));
+        verify(sqlLog -> sqlLog.contains("delete from Human where (human_id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue()));
+    }
+
+    @Test
+    public void testUpdate() {
+        // given
+        Dog updated = new Dog();
+        Dog kept = new Dog();
+        doInTransaction(() -> {
+            session.save(updated);
+            session.save(kept);
+            session.flush();
+
+            // when
+            doWithLogging(() -> assertEquals(1, BulkIdOperations.update(session, Dog.class, "mammalField = :value",
+                    Collections.singletonMap("value", "someCoolValue"), Arrays.asList(updated.id).iterator())));
+            session.clear();
+        });
+
+        // then
+        assertEquals("someCoolValue", session.find(Dog.class, updated.id).mammalField);
+        assertNull(session.find(Dog.class, kept.id).mammalField);
+        verify(sqlLog -> sqlLog.contains("update Mammal set mammalField=? where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Dog')"));
+    }
+
+    @Test
+    public void testUpdateWithoutSuppliedIdsStillUsesDirectDml() {
+        // given
+        Dog dog = new Dog();
+        doInTransaction(() -> {
+            session.save(dog);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Dog d set d.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then
+        assertEquals("someCoolValue", session.find(Dog.class, dog.id).mammalField);
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.contains("HT_TEMP_IDS")));
+    }
+}
@@ -87,4 +87,20 @@ public class SingleGlobalTemporaryTableBulkIdStrategyTest extends AbstractSingle
         verify(sqlLog -> sqlLog.contains("update Mammal set mammalField='someCoolValue' where (id) IN (select ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
         verify(sqlLog -> sqlLog.size() == 2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeleteMatchingNothingSkipsFollowUpStatements() {
+        // given
+        doInTransaction(() -> {
+            session.save(new Human());
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Human where mammalField = 'noSuchValue'").executeUpdate());
+        });
+
+        // then: only the ID insert-select was executed
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert into HT_TEMP_IDS select"));
+        verify(sqlLog -> sqlLog.size() == 1);
+    }
+}
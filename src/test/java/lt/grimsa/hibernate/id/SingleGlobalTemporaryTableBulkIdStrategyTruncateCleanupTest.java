@@ -0,0 +1,37 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyTruncateCleanupTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEAN_ROWS, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.CLEANUP_MODE, "truncate");
+    }
+
+    @Test
+    public void testTruncateFallsBackToDeferredDeleteWhereItWouldCommit() {
+        // given
+        doInTransaction(() -> session.save(new Human()));
+
+        // when
+        doWithLogging(() -> {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate();
+            transaction.commit();
+        });
+
+        // then: H2 commits on truncate, so rows were deleted before commit instead
+        verify(sqlLog -> sqlLog.stream().noneMatch(sql -> sql.startsWith("truncate")));
+        verify(sqlLog -> sqlLog.get(sqlLog.size() - 1).equals("delete from HT_TEMP_IDS where ENTITY_NAME in (?)"));
+        doInTransaction(() -> assertEquals(0, ((Number) session.createNativeQuery("select count(*) from HT_TEMP_IDS").getSingleResult()).intValue()));
+    }
+}
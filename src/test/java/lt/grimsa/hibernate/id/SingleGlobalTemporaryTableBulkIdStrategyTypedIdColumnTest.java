@@ -0,0 +1,66 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyTypedIdColumnTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.BINARY_ID_COLUMN, "BINARY_ID");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.NUMERIC_ID_COLUMN, "NUMERIC_ID");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", BINARY_ID VARBINARY(16), NUMERIC_ID BIGINT";
+    }
+
+    @Test
+    public void testDelete() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("delete from Mammal").executeUpdate());
+            session.clear();
+        });
+
+        // then: entity was deleted
+        assertNull(session.find(Human.class, human.id));
+
+        // then: binary UUIDs were staged in the binary column
+        verify(sqlLog -> sqlLog.get(0).equals("insert into HT_TEMP_IDS (BINARY_ID, ENTITY_NAME) select testentiti0_.id as id, 'model.TestEntities$Mammal' as ENTITY_NAME from Mammal testentiti0_ inner join Animal testentiti0_1_ on testentiti0_.id=testentiti0_1_.id"));
+        verify(sqlLog -> sqlLog.contains("delete from Human where (human_id) IN (select BINARY_ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Mammal')"));
+        verify(sqlLog -> sqlLog.contains("delete from Animal where (id) IN (select BINARY_ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Mammal')"));
+    }
+
+    @Test
+    public void testUpdate() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> session.createQuery("update Human h set h.mammalField = 'someCoolValue'").executeUpdate());
+            session.clear();
+        });
+
+        // then: update was performed
+        assertEquals("someCoolValue", session.find(Human.class, human.id).mammalField);
+
+        // then: expected SQL was generated
+        verify(sqlLog -> sqlLog.contains("update Mammal set mammalField='someCoolValue' where (id) IN (select BINARY_ID from HT_TEMP_IDS where ENTITY_NAME='model.TestEntities$Human')"));
+    }
+}
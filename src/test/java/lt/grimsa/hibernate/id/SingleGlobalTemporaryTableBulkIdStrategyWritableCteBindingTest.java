@@ -0,0 +1,137 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the writable CTE path with the PostgreSQL dialect over H2, which cannot execute data-modifying CTEs. The composed statement is never sent to
+ * the database: it is prepared as a stub recording the bound values and returning a fixed count.
+ */
+public class SingleGlobalTemporaryTableBulkIdStrategyWritableCteBindingTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+    private static final int MATCHED_COUNT = 7;
+
+    private final RecordingConnectionProvider connectionProvider = new RecordingConnectionProvider();
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(AvailableSettings.DIALECT, PostgreSQL95Dialect.class.getName());
+        configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER, connectionProvider);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.WRITABLE_CTE, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.BIND_DISCRIMINATOR, "true");
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.OPERATION_ID_COLUMN, "OPERATION_ID");
+    }
+
+    @Override
+    protected String getExtraColumnDefinitions() {
+        return ", OPERATION_ID BIGINT";
+    }
+
+    @Test
+    public void testParametersAreBoundInStatementOrder() {
+        // when
+        int[] updatedCount = new int[1];
+        doInTransaction(() -> doWithLogging(() -> updatedCount[0] = session
+                .createQuery("update Human h set h.mammalField = :value where h.mammalField = :old")
+                .setParameter("value", "new")
+                .setParameter("old", "old")
+                .executeUpdate()));
+
+        // then: the selected IDs are named, as the values bound into the select clause are not
+        verify(sqlLog -> sqlLog.size() == 1);
+        verify(sqlLog -> sqlLog.get(0).startsWith("with ht_ids (human_id, ENTITY_NAME, OPERATION_ID) as "
+                + "(select testentiti0_.human_id as human_id, ?, ? from"));
+        verify(sqlLog -> sqlLog.get(0).endsWith("where testentiti0_1_.mammalField=?), "
+                + "ht_1 as (update Mammal set mammalField=? where (id) IN (select human_id from ht_ids)) select count(*) from ht_ids"));
+
+        // then: values of the select clause come first, followed by the where clause and the assignments
+        assertEquals(Arrays.asList("1=" + Human.class.getName(), "2=0", "3=old", "4=new"), connectionProvider.boundValues);
+
+        // then: the count selected by the statement is returned
+        assertEquals(MATCHED_COUNT, updatedCount[0]);
+    }
+
+    /**
+     * Hands out connections preparing the composed statement as a stub
+     */
+    public static class RecordingConnectionProvider extends DriverManagerConnectionProviderImpl {
+        private final List<String> boundValues = new ArrayList<>();
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            final Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("prepareStatement") && ((String) args[0]).startsWith("with " + WritableCteStatement.IDS_NAME)) {
+                    return recordingStatement();
+                }
+                return invoke(method, connection, args);
+            });
+        }
+
+        private PreparedStatement recordingStatement() {
+            final Class<?>[] interfaces = {PreparedStatement.class};
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, (proxy, method, args) -> {
+                if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    boundValues.add(args[0] + "=" + args[1]);
+                } else if (method.getName().equals("executeQuery")) {
+                    return countResultSet();
+                }
+                return defaultValue(method);
+            });
+        }
+
+        private static ResultSet countResultSet() {
+            final boolean[] read = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                if (method.getName().equals("next")) {
+                    final boolean hasRow = !read[0];
+                    read[0] = true;
+                    return hasRow;
+                }
+                if (method.getName().equals("getInt")) {
+                    return MATCHED_COUNT;
+                }
+                return defaultValue(method);
+            });
+        }
+
+        private static Object defaultValue(Method method) {
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            if (method.getReturnType() == int.class) {
+                return 0;
+            }
+            if (method.getReturnType() == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package lt.grimsa.hibernate.id;
+
+import model.TestEntities.Human;
+
+import org.hibernate.cfg.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleGlobalTemporaryTableBulkIdStrategyWritableCteTest extends AbstractSingleGlobalTemporaryTableBulkIdStrategyTest {
+
+    @Override
+    protected void configure(Configuration configuration) {
+        super.configure(configuration);
+        configuration.setProperty(SingleGlobalTemporaryTableBulkIdStrategy.WRITABLE_CTE, "true");
+    }
+
+    @Test
+    public void testFallsBackToIdTableOnOtherDialects() {
+        // given
+        Human human = new Human();
+        doInTransaction(() -> {
+            session.save(human);
+            session.flush();
+
+            // when
+            doWithLogging(() -> assertEquals(1, session.createQuery("delete from Human").executeUpdate()));
+            session.clear();
+        });
+
+        // then: H2 does not support data-modifying CTEs, so IDs were staged as usual
+        assertNull(session.find(Human.class, human.id));
+        verify(sqlLog -> sqlLog.get(0).startsWith("insert into HT_TEMP_IDS select"));
+    }
+}
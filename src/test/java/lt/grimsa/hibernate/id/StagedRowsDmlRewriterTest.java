@@ -0,0 +1,58 @@
+package lt.grimsa.hibernate.id;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQL57Dialect;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.dialect.SQLServer2012Dialect;
+import org.junit.Test;
+
+import lt.grimsa.hibernate.id.StrategySettings.DmlForm;
+
+import static org.junit.Assert.assertEquals;
+
+public class StagedRowsDmlRewriterTest {
+    private static final String ID_SUBSELECT = "select ID from HT_TEMP_IDS where ENTITY_NAME='Human'";
+    private static final String CONDITION = "ht_.ENTITY_NAME='Human'";
+    private static final String DELETE = "delete from Mammal where (id) IN (" + ID_SUBSELECT + ")";
+    private static final String UPDATE = "update Mammal set mammalField=? where (id) IN (" + ID_SUBSELECT + ")";
+
+    @Test
+    public void testJoinOnMySql() {
+        StagedRowsDmlRewriter rewriter = new StagedRowsDmlRewriter(DmlForm.JOIN, new MySQL57Dialect());
+        assertEquals("delete Mammal from Mammal join HT_TEMP_IDS ht_ on ht_.ID=Mammal.id where ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(DELETE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+        assertEquals("update Mammal join HT_TEMP_IDS ht_ on ht_.ID=Mammal.id set mammalField=? where ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(UPDATE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+    }
+
+    @Test
+    public void testJoinOnPostgreSql() {
+        StagedRowsDmlRewriter rewriter = new StagedRowsDmlRewriter(DmlForm.JOIN, new PostgreSQL95Dialect());
+        assertEquals("delete from Mammal using HT_TEMP_IDS ht_ where ht_.ID=Mammal.id and ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(DELETE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+        assertEquals("update Mammal set mammalField=? from HT_TEMP_IDS ht_ where ht_.ID=Mammal.id and ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(UPDATE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+    }
+
+    @Test
+    public void testJoinOnSqlServer() {
+        StagedRowsDmlRewriter rewriter = new StagedRowsDmlRewriter(DmlForm.JOIN, new SQLServer2012Dialect());
+        assertEquals("delete Mammal from Mammal join HT_TEMP_IDS ht_ on ht_.ID=Mammal.id where ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(DELETE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+        assertEquals("update Mammal set mammalField=? from Mammal join HT_TEMP_IDS ht_ on ht_.ID=Mammal.id where ht_.ENTITY_NAME='Human'",
+                rewriter.rewrite(UPDATE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+    }
+
+    @Test
+    public void testJoinFallsBackToExistsOnOtherDialects() {
+        StagedRowsDmlRewriter rewriter = new StagedRowsDmlRewriter(DmlForm.JOIN, new H2Dialect());
+        assertEquals("delete from Mammal where exists (select 1 from HT_TEMP_IDS ht_ where ht_.ENTITY_NAME='Human' and ht_.ID=Mammal.id)",
+                rewriter.rewrite(DELETE, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+    }
+
+    @Test
+    public void testCompositeKeysAreNotRewritten() {
+        String sql = "delete from Mammal where (id1, id2) IN (" + ID_SUBSELECT + ")";
+        assertEquals(sql, new StagedRowsDmlRewriter(DmlForm.EXISTS, new H2Dialect()).rewrite(sql, ID_SUBSELECT, "Mammal", "HT_TEMP_IDS", "ID", CONDITION));
+    }
+}
@@ -0,0 +1,44 @@
+package lt.grimsa.hibernate.id;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.param.NamedParameterSpecification;
+import org.hibernate.param.ParameterSpecification;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WritableCteStatementTest {
+    private static final String ID_SUBSELECT = "select ID from HT_TEMP_IDS where ENTITY_NAME='Human'";
+    private static final String ID_SELECT = "select human0_.human_id as human_id, 'Human' as ENTITY_NAME from Human human0_ inner join Mammal human0_1_ on "
+            + "human0_.human_id=human0_1_.id where human0_1_.mammalField=?";
+
+    @Test
+    public void testComposesStatementsIntoCtes() {
+        // given
+        ParameterSpecification whereParameter = new NamedParameterSpecification(1, 1, "where");
+        ParameterSpecification assignmentParameter = new NamedParameterSpecification(1, 1, "value");
+        StagedBulkOperation operation = new StagedBulkOperation("bulk update", null, 0, null, null, null, Collections.singletonList(whereParameter),
+                Arrays.asList(
+                        new BulkStatement("Mammal", "update Mammal set mammalField=? where (id) IN (" + ID_SUBSELECT + ")",
+                                Collections.singletonList(assignmentParameter)),
+                        new BulkStatement("Human", "update Human set humanField='x' where (human_id) IN (" + ID_SUBSELECT + ")", Collections.emptyList())),
+                Collections.emptySet(), false);
+
+        // when
+        WritableCteStatement statement = WritableCteStatement.compose(ID_SELECT, new String[] {"human_id"}, Collections.singletonList("ENTITY_NAME"), ID_SUBSELECT,
+                operation);
+
+        // then: each statement reads the IDs selected once, and the number of IDs is returned
+        assertEquals("with ht_ids (human_id, ENTITY_NAME) as (" + ID_SELECT + "), "
+                + "ht_1 as (update Mammal set mammalField=? where (id) IN (select human_id from ht_ids)), "
+                + "ht_2 as (update Human set humanField='x' where (human_id) IN (select human_id from ht_ids)) "
+                + "select count(*) from ht_ids", statement.getSql());
+
+        // then: parameters are bound in the order they appear
+        List<ParameterSpecification> parameters = statement.getParameterSpecifications();
+        assertEquals(Arrays.asList(whereParameter, assignmentParameter), parameters);
+    }
+}
@@ -57,6 +57,19 @@ public class TestEntities {
 
     @Entity(name = "Dog")
     public static class Dog extends Mammal {
+        public String name;
+        public String breed;
+    }
+
+    /**
+     * Entity mapped to a single table, whose bulk operations Hibernate executes without the multi-table strategy
+     */
+    @Entity(name = "Kennel")
+    public static class Kennel {
+
+        @Id @GeneratedValue public UUID id;
+
+        public String name;
     }
 
 }